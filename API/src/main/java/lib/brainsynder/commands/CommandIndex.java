@@ -0,0 +1,89 @@
+package lib.brainsynder.commands;
+
+import lib.brainsynder.commands.annotations.ICommand;
+
+import java.util.*;
+
+/**
+ * Name/alias lookup for the sub commands of a {@link ParentCommand}.
+ *
+ * <p>The {@link ICommand} annotations are read once when the index is built, names
+ * and aliases are matched ignoring case, and tab completion walks a prefix trie
+ * instead of checking every name of every sub command.</p>
+ */
+final class CommandIndex<T extends SubCommand> {
+    private final int size;
+    private final Map<String, T> lookup = new HashMap<>();
+    private final Node<T> root = new Node<>();
+
+    CommandIndex(List<T> commands) {
+        this.size = commands.size();
+
+        for (T command : commands) {
+            ICommand annotation = command.getCommand(command.getClass());
+            if ((annotation == null) || annotation.name().isEmpty()) continue;
+
+            add(annotation.name(), command);
+            for (String alias : annotation.alias()) {
+                if (!alias.isEmpty()) add(alias, command);
+            }
+        }
+    }
+
+    private void add(String name, T command) {
+        String key = name.toLowerCase(Locale.ENGLISH);
+        // The first command registered with a name keeps it
+        lookup.putIfAbsent(key, command);
+
+        // Every node on the way down lists the entry, so a prefix lookup is just the node it ends on
+        Entry<T> entry = new Entry<>(name, command);
+        Node<T> node = root;
+        node.entries.add(entry);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+            node.entries.add(entry);
+        }
+    }
+
+    /**
+     * The amount of sub commands the index was built from
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the sub command with the name or alias, or null if there is none
+     */
+    T get(String name) {
+        return lookup.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Lists every name/alias starting with the prefix, in the order the sub commands were registered
+     */
+    List<Entry<T>> complete(String prefix) {
+        String key = prefix.toLowerCase(Locale.ENGLISH);
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) return Collections.emptyList();
+        }
+        return node.entries;
+    }
+
+    static final class Entry<T> {
+        final String name;
+        final T command;
+
+        private Entry(String name, T command) {
+            this.name = name;
+            this.command = command;
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>(4);
+        private final List<Entry<T>> entries = new ArrayList<>(2);
+    }
+}
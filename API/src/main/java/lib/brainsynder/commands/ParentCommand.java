@@ -9,13 +9,14 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.entity.Player;
-import org.bukkit.util.StringUtil;
 
 import java.util.*;
 
 public class ParentCommand<T extends SubCommand> extends SubCommand {
     protected boolean overrideTab = false;
     private final List<T> subCommands = new ArrayList<>();
+    // Rebuilt when a sub command is registered, so lookups never read the annotations
+    private volatile CommandIndex<T> index = new CommandIndex<>(Collections.emptyList());
 
     public void sendHelp (CommandSender sender, boolean parent) {
         if (parent) sendUsage(sender);
@@ -53,20 +54,10 @@ public class ParentCommand<T extends SubCommand> extends SubCommand {
         if (!subCommands.isEmpty()) {
             if (!overrideTab) {
                 if (args.length == 1) {
-                    String toComplete = args[0].toLowerCase(Locale.ENGLISH);
-                    for (T command : subCommands) {
-                        if (!command.getClass().isAnnotationPresent(ICommand.class)) continue;
-                        if (!command.canExecute(sender)) continue;
-                        ICommand annotation = command.getClass().getAnnotation(ICommand.class);
-                        if (annotation.name().isEmpty()) continue;
-                        if (StringUtil.startsWithIgnoreCase(annotation.name(), toComplete)) {
-                            completions.add(annotation.name());
-                        }
-                        Arrays.asList(annotation.alias()).forEach(name -> {
-                            if (StringUtil.startsWithIgnoreCase(name, toComplete)) {
-                                completions.add(name);
-                            }
-                        });
+                    Map<T, Boolean> allowed = new IdentityHashMap<>();
+                    for (CommandIndex.Entry<T> entry : getIndex().complete(args[0])) {
+                        if (allowed.computeIfAbsent(entry.command, command -> command.canExecute(sender)))
+                            completions.add(entry.name);
                     }
                 }
             }
@@ -81,24 +72,22 @@ public class ParentCommand<T extends SubCommand> extends SubCommand {
 
     protected void registerSub(T subCommand) {
         subCommands.add(subCommand);
+        index = new CommandIndex<>(subCommands);
     }
 
     public List<T> getSubCommands() {
         return subCommands;
     }
 
+    private CommandIndex<T> getIndex() {
+        CommandIndex<T> index = this.index;
+        // Sub commands added straight to getSubCommands() skip registerSub
+        if (index.size() != subCommands.size()) this.index = index = new CommandIndex<>(subCommands);
+        return index;
+    }
+
     private T parse (String name) {
-        T sub = null;
-        for (T command : subCommands) {
-            if (!command.getClass().isAnnotationPresent(ICommand.class)) continue;
-            ICommand annotation = command.getClass().getAnnotation(ICommand.class);
-            if (annotation.name().isEmpty()) continue;
-            if ((!annotation.name().equalsIgnoreCase(name))
-                    && (!Arrays.asList(annotation.alias()).contains(name))) continue;
-            sub = command;
-            break;
-        }
-        return sub;
+        return getIndex().get(name);
     }
 
     @Override
@@ -130,24 +119,9 @@ public class ParentCommand<T extends SubCommand> extends SubCommand {
         if (!completions.isEmpty()) return completions;
 
         if (args.length >= 1) {
-            String args0 = args[0];
-            T sub = null;
-            for (T command : subCommands) {
-                if (!command.getClass().isAnnotationPresent(ICommand.class)) continue;
-                ICommand annotation = command.getClass().getAnnotation(ICommand.class);
-                if (annotation.name().isEmpty()) continue;
-                if ((!annotation.name().equalsIgnoreCase(args0))
-                        && (!Arrays.asList(annotation.alias()).contains(args0))) continue;
-                sub = command;
-                break;
-            }
-
+            T sub = parse(args[0]);
             if (sub != null) {
-                ArrayList<String> newArgs = new ArrayList<>();
-                Collections.addAll(newArgs, args);
-                newArgs.remove(0);
-                String[] arguments = newArgs.toArray(new String[newArgs.size()]);
-                sub.tabComplete(completions, sender, arguments);
+                sub.tabComplete(completions, sender, newArgs(args));
                 if (!completions.isEmpty()) return completions;
             }
         }
@@ -10,6 +10,7 @@ import java.io.IOException;
 
 public class StorageFile extends StorageTagCompound implements Movable{
     private final File file;
+    private StorageWriter writer = null;
 
     public StorageFile(File file) {
         if (!file.getParentFile().exists()) file.getParentFile().mkdirs();
@@ -21,10 +22,8 @@ public class StorageFile extends StorageTagCompound implements Movable{
 
         try { // Will fix the data not being read from the file
             FileInputStream stream = new FileInputStream(file);
-            StorageTagCompound compound = CompressedStreamTools.readCompressed(stream);
-            compound.getKeySet().forEach(key -> {
-                setTag(key, compound.getTag(key));
-            });
+            // Nested tags stay encoded until they are first used
+            putAll(CompressedStreamTools.readCompressedLazy(stream));
             stream.close();
         } catch (IOException ignored) {}
 
@@ -38,7 +37,33 @@ public class StorageFile extends StorageTagCompound implements Movable{
         return this;
     }
 
+    /**
+     * Hands saving off to the {@link StorageWriter}, {@link #save()} will then only mark the file as dirty
+     * and it gets written in the background (see the writer for which thread the file is serialized on).
+     *
+     * @param writer The writer to use, or null to save on the calling thread again
+     */
+    public StorageFile setWriter(StorageWriter writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    public StorageWriter getWriter() {
+        return writer;
+    }
+
     public void save () {
+        if ((writer != null) && writer.isRunning()) {
+            writer.markDirty(this);
+            return;
+        }
+        saveNow();
+    }
+
+    /**
+     * Writes the file right away on the calling thread, even if a {@link StorageWriter} is set
+     */
+    public void saveNow () {
         try {
             if (!file.exists()) file.createNewFile();
             FileOutputStream stream = new FileOutputStream(file);
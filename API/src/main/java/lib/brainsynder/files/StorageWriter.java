@@ -0,0 +1,251 @@
+package lib.brainsynder.files;
+
+import lib.brainsynder.nbt.CompressedStreamTools;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write-behind saving for {@link StorageFile}s.
+ *
+ * <p>Once a file is attached with {@link StorageFile#setWriter(StorageWriter)} its {@link StorageFile#save()}
+ * only marks it as dirty. Once per interval every dirty file is serialized a single time, however often it
+ * was saved, and the bytes are compressed and written in the background into a temp file that then
+ * replaces the real one. Everything that is still dirty gets written when the writer is shut down
+ * (automatically when the owning plugin is disabled).</p>
+ *
+ * <p>With a plugin the files are serialized on the main thread, so they should only be changed there.
+ * Without one they are serialized on the writer thread while holding the file's monitor, so they
+ * have to be read and changed inside {@code synchronized (file)}.</p>
+ */
+public class StorageWriter implements Listener {
+    private final Plugin plugin;
+    private final ScheduledExecutorService executor;
+    private final Map<File, StorageFile> dirty = new ConcurrentHashMap<>();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean(false);
+    private volatile boolean running = true;
+
+    // Snapshots are numbered so an older one never replaces a newer one on disk (guarded by itself)
+    private final Map<File, Long> written = new HashMap<>();
+    private final AtomicLong snapshots = new AtomicLong();
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private volatile long lastWriteNanos = 0;
+
+    public StorageWriter(Plugin plugin) {
+        this(plugin, 5, TimeUnit.SECONDS);
+    }
+
+    public StorageWriter(Plugin plugin, long interval, TimeUnit unit) {
+        this.plugin = plugin;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BSLib-StorageWriter" + ((plugin == null) ? "" : "-" + plugin.getName()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+            }
+        }, interval, interval, unit);
+
+        if (plugin != null) Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Queues the file to be written on the next run, marking it again before that is a no-op.
+     * If the writer has been shut down the file is written right away.
+     */
+    public void markDirty(StorageFile storage) {
+        File file = storage.getFile().getAbsoluteFile();
+        dirty.put(file, storage);
+        // Shut down since the check in StorageFile.save(), the final flush could have missed it
+        if (!running && dirty.remove(file, storage)) writeNow(file, storage);
+    }
+
+    /**
+     * Serializes and writes every dirty file on the calling thread
+     */
+    public void flush() {
+        for (Map.Entry<File, StorageFile> entry : dirty.entrySet()) {
+            // Removed before the snapshot, so a save made while writing marks it dirty again
+            if (dirty.remove(entry.getKey(), entry.getValue())) writeNow(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Stops the background thread and writes everything that is still dirty.
+     * Any save after this is written straight away on the calling thread.
+     */
+    public void shutdown() {
+        if (!running) return;
+        running = false;
+        HandlerList.unregisterAll(this);
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @EventHandler
+    public void onDisable(PluginDisableEvent event) {
+        if (event.getPlugin() == plugin) shutdown();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The number of files waiting to be written
+     */
+    public int getQueueDepth() {
+        return dirty.size();
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getFailedWriteCount() {
+        return failedWrites.get();
+    }
+
+    public long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    public long getMaxWriteNanos() {
+        return maxWriteNanos.get();
+    }
+
+    public long getAverageWriteNanos() {
+        long count = writes.get();
+        return (count == 0) ? 0 : totalWriteNanos.get() / count;
+    }
+
+    /**
+     * Runs on the writer thread once per interval
+     */
+    private void tick() {
+        if (dirty.isEmpty()) return;
+        if ((plugin == null) || !plugin.isEnabled()) {
+            flush();
+            return;
+        }
+        // One main thread snapshot at a time, even if the server is lagging behind the interval
+        if (snapshotScheduled.compareAndSet(false, true)) Bukkit.getScheduler().runTask(plugin, this::snapshotDirty);
+    }
+
+    /**
+     * Serializes the dirty files on the main thread and hands the bytes to the writer thread
+     */
+    private void snapshotDirty() {
+        snapshotScheduled.set(false);
+        Map<File, Snapshot> taken = new HashMap<>();
+        for (Map.Entry<File, StorageFile> entry : dirty.entrySet()) {
+            if (!dirty.remove(entry.getKey(), entry.getValue())) continue;
+            Snapshot snapshot = snapshot(entry.getValue());
+            if (snapshot != null) taken.put(entry.getKey(), snapshot);
+        }
+        if (taken.isEmpty()) return;
+
+        try {
+            executor.execute(() -> taken.forEach(this::write));
+        } catch (RejectedExecutionException e) {
+            // Shut down in the meantime
+            taken.forEach(this::write);
+        }
+    }
+
+    private void writeNow(File file, StorageFile storage) {
+        Snapshot snapshot = snapshot(storage);
+        if (snapshot != null) write(file, snapshot);
+    }
+
+    /**
+     * Serializes the file (uncompressed), the bytes never change after this
+     */
+    private Snapshot snapshot(StorageFile storage) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            long number;
+            synchronized (storage) {
+                number = snapshots.incrementAndGet();
+                CompressedStreamTools.writeTag(storage, new DataOutputStream(bytes));
+            }
+            return new Snapshot(number, bytes.toByteArray());
+        } catch (IOException e) {
+            failedWrites.incrementAndGet();
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Compresses the snapshot and writes it through a temp file
+     */
+    private void write(File file, Snapshot snapshot) {
+        synchronized (written) {
+            // A newer snapshot of the file was already written
+            if (written.getOrDefault(file, 0L) > snapshot.number) return;
+            written.put(file, snapshot.number);
+
+            long start = System.nanoTime();
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try {
+                try (OutputStream stream = new GZIPOutputStream(new FileOutputStream(temp))) {
+                    stream.write(snapshot.bytes);
+                }
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                failedWrites.incrementAndGet();
+                e.printStackTrace();
+                return;
+            }
+
+            long time = System.nanoTime() - start;
+            writes.incrementAndGet();
+            totalWriteNanos.addAndGet(time);
+            maxWriteNanos.accumulateAndGet(time, Math::max);
+            lastWriteNanos = time;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long number;
+        private final byte[] bytes;
+
+        private Snapshot(long number, byte[] bytes) {
+            this.number = number;
+            this.bytes = bytes;
+        }
+    }
+}
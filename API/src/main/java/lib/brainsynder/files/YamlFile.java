@@ -6,6 +6,7 @@ import com.google.common.collect.Lists;
 import lib.brainsynder.files.options.YamlOption;
 import lib.brainsynder.utils.AdvString;
 import lib.brainsynder.utils.Colorize;
+import org.bukkit.Bukkit;
 import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -18,20 +19,30 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.util.Vector;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 public abstract class YamlFile implements ConfigurationSection, Movable {
     private File file;
     private FileConfiguration configuration;
     private FileConfiguration tempConfig;
     private final HashMap<String, String> movedKeys;
-    private final HashMap<String, String> comments;
-    private final HashMap<String, String> sections;
-    private final HashMap<String, AdvString.AlignText> sectionAlign;
-    private List<String> currentLines;
+    private final YamlLayout layout;
+
+    private int editDepth = 0;
+    private boolean pendingSave = false;
+    private Plugin savePlugin = null;
+    private long saveDelay = 0;
+    private BukkitTask saveTask = null;
+    private long renderVersion = 0;
+    private long writtenVersion = 0;
+    // The last render handed to an async write, null once it is on disk
+    private String pendingContents = null;
+    private final Object writeLock = new Object();
 
     private void createParentDirs(File file) throws IOException {
         Preconditions.checkNotNull(file);
@@ -54,10 +65,7 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
 
     public YamlFile(File file) {
         movedKeys = new HashMap<>();
-        comments = new HashMap<>();
-        sections = new HashMap<>();
-        sectionAlign = new HashMap<>();
-        currentLines = new ArrayList<>();
+        layout = new YamlLayout();
         try {
             createParentDirs(file);
             if (!file.exists()) file.createNewFile();
@@ -75,18 +83,13 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
         if (!file.canWrite()) file.setWritable(true, false);
         if (!file.canRead()) file.setReadable(true, false);
         if (!file.canExecute()) file.setExecutable(true, false);
-        currentLines = new ArrayList<>();
 
         this.configuration = YamlConfiguration.loadConfiguration(file);
         tempConfig = new YamlConfiguration();
 
         loadDefaults();
         configuration.options().copyDefaults(true);
-        save(true);
-
-        writeSections();
-        writeComments();
-        save(false);
+        saveNow();
 
         try {
             configuration.load(file);
@@ -108,16 +111,15 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
 
     public void addComment(String path, String comment) {
         String key = fetchKey(path);
-        if (comments.containsKey(key)) return;
-        comments.put(key, comment);
+        if (layout.hasComment(key)) return;
+        layout.addComment(key, comment);
     }
 
     public void addSectionHeader(String path, String text) {
-        sections.put(fetchKey(path), text);
+        layout.addSection(fetchKey(path), text);
     }
     public void addSectionHeader(String path, AdvString.AlignText alignText, String text) {
-        sections.put(fetchKey(path), text);
-        sectionAlign.put(fetchKey(path), alignText);
+        layout.addSection(fetchKey(path), alignText, text);
     }
 
     @Override
@@ -156,132 +158,29 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
         addComment(option.getPath(), comment);
     }
 
-    private void writeComments() {
-        // For each comment to be made...
-        for (String path : comments.keySet()) {
-            // Get all the divisions made in the config
-            String[] divisions = path.split("\\.");
-
-            writeComment(path, divisions, 0, 0);
-        }
-    }
-
-    private void writeComment(String path, String[] divisions, int iteration, int startingLine) {
-        StringBuilder indent = new StringBuilder();
-        for (int j = 0; j < iteration; j++) {
-            indent.append("  ");
-        }
-        // Go through each line in the file
-        for (int i = startingLine; i < currentLines.size(); i++) {
-            String line = currentLines.get(i);
-            if (!line.startsWith(indent.toString())) return;
-            if (line.startsWith("#")) continue;
-            if (line.startsWith(indent + divisions[iteration]) ||
-                    line.startsWith(indent + "'" + divisions[iteration] + "'")) {
-                iteration += 1;
-                if (iteration == divisions.length) {
-                    int currentLine = i;
-                    if (iteration == 1) {
-                        currentLines.add(currentLine, "");
-                        currentLine++;
-                    }
-                    String[] rawComment = comments.get(fetchKey(path)).split("\n");
-                    for (String commentPart : rawComment) {
-                        currentLines.add(currentLine, indent + "# " + commentPart);
-                        currentLine++;
-                    }
-                    break;
-                } else {
-                    writeComment(fetchKey(path), divisions, iteration, i + 1);
-                }
-            }
-        }
-    }
-
-    private void writeSections() {
-        // For each path the section is to be written above...
-        for (String path : sections.keySet()) {
-            String[] divisions = path.split("\\.");
-
-            writeSection(path, divisions, 0);
-        }
-    }
-
-    private void writeSection(String path, String[] divisions, int iteration) {
-        StringBuilder indent = new StringBuilder();
-        for (int j = 0; j < iteration; j++) {
-            indent.append("  ");
-        }
-
-        // For each line in the file currently...
-        for (int i = 0; i < currentLines.size(); i++) {
-            String line = currentLines.get(i);
-            if (line.startsWith(indent + divisions[iteration]) ||
-                    line.startsWith(indent + "'" + divisions[iteration] + "'")) {
-                iteration += 1;
-                if (iteration == divisions.length) {
-                    String section = sections.get(fetchKey(path));
-                    StringBuilder length = new StringBuilder();
-                    length.append("###");
-
-                    List<String> sectionList = new ArrayList<>(Arrays.asList(section.split("\n")));
-                    int largestString = sectionList.get(0).length();
-
-                    for (String s : sectionList) {
-                        if (s.length() > largestString) {
-                            largestString = s.length();
-                        }
-                    }
-
-                    for (int j = 0; j < largestString; j++) {
-                        length.append("#");
-                    }
-                    length.append("###");
-                    currentLines.add(i, indent + length.toString());
-
-                    // This has to run in reverse to get the right order
-                    for (int l = (sectionList.size() - 1); l > -1; l--) {
-                        String s = sectionList.get(l);
-                        currentLines.add(i, indent + "#  " + AdvString.getPaddedString(s, ' ', largestString, sectionAlign.getOrDefault(path, AdvString.AlignText.CENTER)) + "  #");
-                    }
-                    currentLines.add(i, indent + length.toString());
-                    currentLines.add(i, "");
-                    break;
-                } else {
-                    writeSection(fetchKey(path), divisions, iteration);
-                }
-            }
-        }
-    }
-
-    private void save(boolean isConfig) {
+    /**
+     * Builds the full file contents, the config values with all the section headers and comments added in
+     */
+    private String render() {
+        StringBuilder builder = new StringBuilder();
         try {
-            if (isConfig) {
-                tempConfig.save(file);
-                FileInputStream stream = new FileInputStream(file);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8));
-                String currentLine;
-                while ((currentLine = reader.readLine()) != null) {
-                    if (currentLine.startsWith("#")) continue;
-                    currentLines.add(currentLine);
-                }
-                reader.close();
-            } else {
-                // Opens up a new file writer
-                FileOutputStream stream = new FileOutputStream(file);
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream, Charsets.UTF_8));
-                // For each line to write...
-                for (String line : currentLines) {
-                    // Write that and add in a break.
-                    writer.write(line);
-                    writer.write("\n");
-                }
-                // Close the writer.
-                writer.close();
+            layout.write(tempConfig.saveToString(), builder);
+        } catch (IOException ignored) {} // StringBuilder does not throw
+        return builder.toString();
+    }
+
+    private void write(String contents, long version) {
+        synchronized (writeLock) {
+            // This or a newer version was already written
+            if (version <= writtenVersion) return;
+            writtenVersion = version;
+            if (version == renderVersion) pendingContents = null;
+
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8))) {
+                writer.write(contents);
+            } catch (IOException ex) {
+                ex.printStackTrace();
             }
-
-        } catch (IOException ex) {
-            ex.printStackTrace();
         }
     }
 
@@ -651,9 +550,6 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
     }
 
     public void set(String tag, Object data, boolean save) {
-        // Resets the `currentLines` to clear the previous generations
-        currentLines = new ArrayList<>();
-
         // Set the new data
         configuration.set(fetchKey(tag), data);
         tempConfig.set(fetchKey(tag), data);
@@ -661,13 +557,93 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
         if (save) save();
     }
 
+    /**
+     * Runs all the changes made by the editor as a single batch, the file is saved once
+     * at the end (if anything asked for a save) rather than after every {@link #set(String, Object)}
+     */
+    public void edit(Consumer<YamlFile> editor) {
+        editDepth++;
+        try {
+            editor.accept(this);
+        } finally {
+            editDepth--;
+            if ((editDepth == 0) && pendingSave) {
+                pendingSave = false;
+                save();
+            }
+        }
+    }
+
+    /**
+     * Debounces saving: instead of writing on every save, the file is written once
+     * the delay has passed, with the disk write happening off the main thread.
+     * Call {@link #flush()} when the plugin disables to write anything still pending.
+     *
+     * @param delay Delay in ticks, 0 will save straight away again
+     */
+    public void setSaveDelay(Plugin plugin, long delay) {
+        this.savePlugin = plugin;
+        this.saveDelay = delay;
+    }
+
     public void save () {
-        // Handle the saving now
-        save(true);
+        if (editDepth > 0) {
+            pendingSave = true;
+            return;
+        }
+
+        if ((saveDelay > 0) && (savePlugin != null) && savePlugin.isEnabled()) {
+            if (saveTask != null) return; // A save is already on the way
+            saveTask = Bukkit.getScheduler().runTaskLater(savePlugin, () -> {
+                saveTask = null;
+                // The config is rendered on the main thread, only the writing is done async
+                String contents = render();
+                long version;
+                synchronized (writeLock) {
+                    version = ++renderVersion;
+                    pendingContents = contents;
+                }
+                Bukkit.getScheduler().runTaskAsynchronously(savePlugin, () -> write(contents, version));
+            }, saveDelay);
+            return;
+        }
+        saveNow();
+    }
+
+    /**
+     * Writes the file on the calling thread right away
+     */
+    public void saveNow () {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+
+        synchronized (writeLock) {
+            writtenVersion = ++renderVersion;
+            pendingContents = null;
+            // Streams the layout straight into the file
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8))) {
+                layout.write(tempConfig.saveToString(), writer);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
 
-        writeSections();
-        writeComments();
-        save(false);
+    /**
+     * Writes any save that is still waiting on the debounce delay, or on its async write
+     */
+    public void flush () {
+        if (saveTask != null) {
+            saveNow();
+            return;
+        }
+
+        synchronized (writeLock) {
+            // Rendered but the async write has not run yet (it skips itself once this is written)
+            if (pendingContents != null) write(pendingContents, renderVersion);
+        }
     }
 
     @Override
@@ -710,8 +686,9 @@ public abstract class YamlFile implements ConfigurationSection, Movable {
             movedKeys.putIfAbsent(oldKey, newKey);
 
             // Will ensure the comments get moved as well
-            if ((!comments.containsKey(newKey)) && comments.containsKey(oldKey)) comments.put(newKey, comments.get(oldKey));
-            if ((!sections.containsKey(newKey)) && sections.containsKey(oldKey)) sections.put(newKey, sections.get(oldKey));
+            if ((!layout.hasComment(newKey)) && layout.hasComment(oldKey)) layout.addComment(newKey, layout.getComment(oldKey));
+            if ((!layout.hasSection(newKey)) && layout.hasSection(oldKey))
+                layout.addSection(newKey, layout.getSectionAlign(oldKey), layout.getSection(oldKey));
 
             set(newKey, get(oldKey));
             set(oldKey, null);
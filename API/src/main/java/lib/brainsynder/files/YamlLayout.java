@@ -0,0 +1,188 @@
+package lib.brainsynder.files;
+
+import lib.brainsynder.utils.AdvString;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Holds the comments and section headers of a {@link YamlFile} and adds them
+ * to the saved YAML in a single pass.
+ *
+ * <p>The lines written above each key are built once and reused on every save
+ * until the comment/section for that key is changed.</p>
+ */
+public class YamlLayout {
+    private final Map<String, String> comments = new HashMap<>();
+    private final Map<String, String> sections = new HashMap<>();
+    private final Map<String, AdvString.AlignText> sectionAlign = new HashMap<>();
+    private final Map<String, List<String>> blocks = new HashMap<>();
+
+    public boolean hasComment(String path) {
+        return comments.containsKey(path);
+    }
+
+    public String getComment(String path) {
+        return comments.get(path);
+    }
+
+    public void addComment(String path, String comment) {
+        comments.put(path, comment);
+        blocks.remove(path);
+    }
+
+    public boolean hasSection(String path) {
+        return sections.containsKey(path);
+    }
+
+    public String getSection(String path) {
+        return sections.get(path);
+    }
+
+    public AdvString.AlignText getSectionAlign(String path) {
+        return sectionAlign.getOrDefault(path, AdvString.AlignText.CENTER);
+    }
+
+    public void addSection(String path, String text) {
+        sections.put(path, text);
+        blocks.remove(path);
+    }
+
+    public void addSection(String path, AdvString.AlignText alignText, String text) {
+        sectionAlign.put(path, alignText);
+        addSection(path, text);
+    }
+
+    /**
+     * Copies the raw YAML to the output, writing the section headers and comments
+     * above the keys they belong to. Lines starting with '#' are dropped.
+     */
+    public void write(String yaml, Appendable output) throws IOException {
+        // The full path of the key last seen at each depth
+        List<String> paths = new ArrayList<>();
+        int start = 0;
+        int length = yaml.length();
+
+        while (start < length) {
+            int end = yaml.indexOf('\n', start);
+            if (end == -1) end = length;
+            String line = yaml.substring(start, end);
+            start = end + 1;
+
+            if (line.startsWith("#")) continue;
+
+            String key = readKey(line, paths.size());
+            if (key != null) {
+                int depth = countIndent(line) / 2;
+                while (paths.size() > depth) paths.remove(paths.size() - 1);
+                String path = (depth == 0) ? key : paths.get(depth - 1) + '.' + key;
+                paths.add(path);
+
+                List<String> block = getBlock(path, depth);
+                for (String blockLine : block) {
+                    output.append(blockLine).append('\n');
+                }
+            }
+
+            output.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Reads the key from the line, or null if the line is not a key (list entries, text blocks, etc.)
+     */
+    private static String readKey(String line, int maxDepth) {
+        int indent = countIndent(line);
+        if ((indent % 2) != 0) return null;
+        if ((indent / 2) > maxDepth) return null;
+        if (indent >= line.length()) return null;
+
+        char first = line.charAt(indent);
+        if ((first == '-') || (first == '#')) return null;
+
+        if ((first == '\'') || (first == '"')) {
+            StringBuilder key = new StringBuilder();
+            for (int i = indent + 1; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == first) {
+                    // '' is an escaped quote in single quoted keys
+                    if ((first == '\'') && (i + 1 < line.length()) && (line.charAt(i + 1) == '\'')) {
+                        key.append(c);
+                        i++;
+                        continue;
+                    }
+                    return ((i + 1 < line.length()) && (line.charAt(i + 1) == ':')) ? key.toString() : null;
+                }
+                if ((first == '"') && (c == '\\') && (i + 1 < line.length())) c = line.charAt(++i);
+                key.append(c);
+            }
+            return null;
+        }
+
+        for (int i = indent; i < line.length(); i++) {
+            if ((line.charAt(i) == ':') && ((i + 1 == line.length()) || (line.charAt(i + 1) == ' ')))
+                return line.substring(indent, i);
+        }
+        return null;
+    }
+
+    private static int countIndent(String line) {
+        int indent = 0;
+        while ((indent < line.length()) && (line.charAt(indent) == ' ')) indent++;
+        return indent;
+    }
+
+    /**
+     * The section header and comment lines for the path, built once until either changes
+     */
+    private List<String> getBlock(String path, int depth) {
+        List<String> block = blocks.get(path);
+        if (block != null) return block;
+
+        if (!sections.containsKey(path) && !comments.containsKey(path)) {
+            block = Collections.emptyList();
+        } else {
+            String indent = indent(depth);
+            block = new ArrayList<>();
+
+            String section = sections.get(path);
+            if (section != null) {
+                List<String> sectionList = Arrays.asList(section.split("\n"));
+                int largestString = 0;
+                for (String s : sectionList) {
+                    if (s.length() > largestString) largestString = s.length();
+                }
+
+                StringBuilder border = new StringBuilder(indent);
+                for (int j = 0; j < largestString + 6; j++) border.append('#');
+
+                block.add("");
+                block.add(border.toString());
+                for (String s : sectionList) {
+                    block.add(indent + "#  " + AdvString.getPaddedString(s, ' ', largestString, getSectionAlign(path)) + "  #");
+                }
+                block.add(border.toString());
+            }
+
+            String comment = comments.get(path);
+            if (comment != null) {
+                if (depth == 0) block.add("");
+                for (String commentPart : comment.split("\n")) {
+                    block.add(indent + "# " + commentPart);
+                }
+            }
+            block = Collections.unmodifiableList(block);
+        }
+
+        blocks.put(path, block);
+        return block;
+    }
+
+    private static String indent(int depth) {
+        StringBuilder indent = new StringBuilder();
+        for (int j = 0; j < depth; j++) {
+            indent.append("  ");
+        }
+        return indent.toString();
+    }
+}
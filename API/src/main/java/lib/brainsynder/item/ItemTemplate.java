@@ -0,0 +1,280 @@
+package lib.brainsynder.item;
+
+import lib.brainsynder.utils.Colorize;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * An {@link ItemBuilder} compiled for rendering many times, EG: the icons of a menu that is
+ * refreshed for every viewer. Get one with {@link ItemBuilder#compile(String...)}.
+ *
+ * <p>The placeholders in the name and lore are found once, and the text around them is
+ * translated once. {@link #render(Map)} only fills the values into a copy of the prototype item.
+ * Unlike {@link ItemBuilder#build()}, values are not searched for other placeholders.</p>
+ *
+ * <pre>
+ * ItemTemplate template = new ItemBuilder(Material.DIAMOND_SWORD).withName("&e{player}")
+ *         .withLore(Collections.singletonList("&7Kills: &c{kills}")).compile("{player}", "{kills}");
+ *
+ * Map&lt;String, Object&gt; values = new HashMap&lt;&gt;();
+ * values.put("{player}", player.getName());
+ * values.put("{kills}", kills);
+ * ItemStack item = template.render(values);
+ * </pre>
+ *
+ * Templates never change once compiled, so one can be shared by every menu and player.
+ */
+public final class ItemTemplate {
+    private final ItemStack prototype;
+    // Null if the name and lore have no placeholders, then the prototype already has the meta
+    private final ItemMeta meta;
+    private final String[] placeholders;
+    private final Line name;
+    private final Line[] lore;
+
+    ItemTemplate(ItemStack item, ItemMeta meta, Map<String, String> replaceName, Map<String, String> replaceLore,
+                 Map<String, String> masterReplace, String... extra) {
+        // Same as ItemBuilder.build(), the name/lore values are used before the master values
+        Map<String, String> nameValues = new HashMap<>(masterReplace);
+        nameValues.putAll(replaceName);
+        Map<String, String> loreValues = new HashMap<>(masterReplace);
+        loreValues.putAll(replaceLore);
+
+        Set<String> keys = new LinkedHashSet<>(nameValues.keySet());
+        keys.addAll(loreValues.keySet());
+        Collections.addAll(keys, extra);
+        keys.remove(null);
+        keys.remove("");
+        placeholders = keys.toArray(new String[0]);
+
+        Line name = null;
+        Line[] lore = null;
+        if (item.getType() != Material.AIR) {
+            if (meta.hasDisplayName()) name = Line.compile(meta.getDisplayName(), placeholders, defaults(nameValues, extra));
+            if (meta.hasLore()) {
+                String[] loreDefaults = defaults(loreValues, extra);
+                List<String> lines = meta.getLore();
+                lore = new Line[lines.size()];
+                for (int i = 0; i < lore.length; i++) lore[i] = Line.compile(lines.get(i), placeholders, loreDefaults);
+            }
+        }
+
+        ItemStack prototype = item.clone();
+        if (item.getType() == Material.AIR) {
+            this.meta = null;
+        } else if (((name == null) || name.isStatic()) && ((lore == null) || allStatic(lore))) {
+            // Nothing to fill, so this is the same as ItemBuilder.build()
+            ItemMeta copy = meta.clone();
+            if (name != null) copy.setDisplayName(name.render(null));
+            if (lore != null) copy.setLore(renderLore(lore, null));
+            prototype.setItemMeta(copy);
+            this.meta = null;
+        } else {
+            // The meta is replaced on every render anyway
+            prototype.setItemMeta(null);
+            this.meta = meta.clone();
+        }
+        this.prototype = prototype;
+        this.name = name;
+        this.lore = lore;
+    }
+
+    /**
+     * Renders the item with the default values (what was set with the replace methods of the builder)
+     */
+    public ItemStack render() {
+        return render(Collections.emptyMap());
+    }
+
+    /**
+     * Renders the item, placeholders missing from the map use their default value
+     *
+     * @param values placeholder -> value
+     */
+    public ItemStack render(Map<String, ?> values) {
+        ItemStack item = prototype.clone();
+        if (meta == null) return item;
+
+        Values filled = new Values(placeholders.length);
+        if ((values != null) && !values.isEmpty()) {
+            for (int i = 0; i < placeholders.length; i++) {
+                Object value = values.get(placeholders[i]);
+                if (value != null) filled.raw[i] = String.valueOf(value);
+            }
+        }
+
+        ItemMeta meta = this.meta.clone();
+        if (name != null) meta.setDisplayName(name.render(filled));
+        if (lore != null) meta.setLore(renderLore(lore, filled));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    /**
+     * The placeholders that can be filled
+     */
+    public List<String> getPlaceholders() {
+        return Collections.unmodifiableList(Arrays.asList(placeholders));
+    }
+
+    private static List<String> renderLore(Line[] lore, Values values) {
+        List<String> lines = new ArrayList<>(lore.length);
+        for (Line line : lore) lines.add(line.render(values));
+        return lines;
+    }
+
+    private static boolean allStatic(Line[] lines) {
+        for (Line line : lines) {
+            if (!line.isStatic()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The default value of every placeholder that is used in the name or lore, or null if it is not
+     */
+    private String[] defaults(Map<String, String> values, String[] extra) {
+        List<String> extras = Arrays.asList(extra);
+        String[] defaults = new String[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            String key = placeholders[i];
+            if (values.containsKey(key)) {
+                defaults[i] = values.get(key);
+            } else if (extras.contains(key)) {
+                // No default, so it stays as it is until it gets a value
+                defaults[i] = key;
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * Checks if the text ends with an unfinished color code ('&' or '&#' with less than 6 hex digits),
+     * which could turn into a different color once something is added after it
+     */
+    private static boolean endsInCode(String text) {
+        int length = text.length();
+        for (int i = Math.max(0, length - 7); i < length; i++) {
+            char c = text.charAt(i);
+            if ((c != '&') && (c != ChatColor.COLOR_CHAR)) continue;
+            if (i == (length - 1)) return true;
+            if (text.charAt(i + 1) != '#') continue;
+
+            boolean hex = true;
+            for (int j = i + 2; j < length; j++) {
+                char digit = text.charAt(j);
+                if (((digit < '0') || (digit > '9')) && ((digit < 'a') || (digit > 'f')) && ((digit < 'A') || (digit > 'F'))) hex = false;
+            }
+            if (hex) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The values of one render, each one is only translated once even if it is used on every line
+     */
+    private static final class Values {
+        private final String[] raw;
+        private final String[] translated;
+
+        private Values(int size) {
+            raw = new String[size];
+            translated = new String[size];
+        }
+    }
+
+    private static final class Line {
+        // The text between the placeholders (one more than there are slots), as it was and translated
+        private final String[] raw;
+        private final String[] text;
+        // Which placeholder is after each part of the text
+        private final int[] slots;
+        private final String[] defaults;
+        private final boolean[] open;
+
+        private Line(String[] raw, int[] slots, String[] defaults) {
+            this.raw = raw;
+            this.slots = slots;
+            this.defaults = defaults;
+            text = new String[raw.length];
+            open = new boolean[raw.length];
+            for (int i = 0; i < raw.length; i++) {
+                text[i] = Colorize.translateBungeeHex(raw[i]);
+                open[i] = endsInCode(raw[i]);
+            }
+        }
+
+        private static Line compile(String line, String[] placeholders, String[] defaults) {
+            List<String> raw = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            int position = 0;
+            while (true) {
+                // The first placeholder in what is left of the line (the longest one if a few start at the same place)
+                int found = -1, slot = -1;
+                for (int i = 0; i < placeholders.length; i++) {
+                    if (defaults[i] == null) continue;
+                    int index = line.indexOf(placeholders[i], position);
+                    if (index == -1) continue;
+                    if ((found == -1) || (index < found)
+                            || ((index == found) && (placeholders[i].length() > placeholders[slot].length()))) {
+                        found = index;
+                        slot = i;
+                    }
+                }
+                if (found == -1) break;
+
+                raw.add(line.substring(position, found));
+                slots.add(slot);
+                position = found + placeholders[slot].length();
+            }
+            raw.add(line.substring(position));
+
+            int[] slotArray = new int[slots.size()];
+            for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+            return new Line(raw.toArray(new String[0]), slotArray, defaults);
+        }
+
+        private boolean isStatic() {
+            return slots.length == 0;
+        }
+
+        private String render(Values values) {
+            if (slots.length == 0) return text[0];
+
+            String[] parts = new String[slots.length];
+            boolean split = true;
+            for (int i = 0; i < slots.length; i++) {
+                int slot = slots[i];
+                String value = (values == null) ? null : values.raw[slot];
+                parts[i] = (value == null) ? defaults[slot] : value;
+                if (open[i] || endsInCode(parts[i])) split = false;
+            }
+
+            if (!split) {
+                // A color code would be cut in half, so the whole line has to be translated
+                StringBuilder builder = new StringBuilder(raw[0]);
+                for (int i = 0; i < slots.length; i++) builder.append(parts[i]).append(raw[i + 1]);
+                return Colorize.compileBungeeHex(builder.toString());
+            }
+
+            StringBuilder builder = new StringBuilder(text[0]);
+            for (int i = 0; i < slots.length; i++) {
+                int slot = slots[i];
+                String translated;
+                if ((values != null) && (values.raw[slot] != null)) {
+                    translated = values.translated[slot];
+                    if (translated == null) translated = values.translated[slot] = Colorize.compileBungeeHex(parts[i]);
+                } else {
+                    // Defaults are the same every time
+                    translated = Colorize.translateBungeeHex(parts[i]);
+                }
+                builder.append(translated).append(text[i + 1]);
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -5,14 +5,24 @@ import com.mojang.authlib.properties.Property;
 import com.mojang.authlib.properties.PropertyMap;
 import lib.brainsynder.item.meta.*;
 import lib.brainsynder.nbt.StorageTagCompound;
-import lib.brainsynder.reflection.FieldAccessor;
 import lib.brainsynder.reflection.Reflection;
+import lib.brainsynder.reflection.ReflectionCache;
+import lib.brainsynder.storage.ConcurrentCache;
+import lib.brainsynder.utils.Base64Wrapper;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.UUID;
 
 class ItemTools {
+    // Profiles are shared between every skull with the same owner and texture, so they should not be changed
+    private static final ConcurrentCache<String, GameProfile> PROFILES = new ConcurrentCache<>(2048);
+    private static final ConcurrentCache<String, ItemStack> SKULLS = new ConcurrentCache<>(512);
+    private static volatile ReflectionCache.Accessor profileField = null;
+
     /*
     Caused by: java.lang.IllegalArgumentException: Name and ID cannot both be blank
     at com.mojang.authlib.GameProfile.<init>(GameProfile.java:26) ~[spigot-1.15.1.jar:git-Spigot-2ee05fe-d31f05f]
@@ -29,29 +39,71 @@ class ItemTools {
     protected static GameProfile createProfile(String data) {
         return createProfile("", data);
     }
+    /**
+     * Gets the profile for the texture, the same texture always gets the same (cached) profile
+     * The UUID comes from the texture, so the client can reuse the skin it already downloaded.
+     */
     protected static GameProfile createProfile(String owner, String data) {
-        try {
-            GameProfile profile = new GameProfile(UUID.randomUUID(), (owner.isEmpty() ? "Steve" : owner));
-            PropertyMap propertyMap = profile.getProperties();
-            Property property = new Property("textures", data);
-            propertyMap.put("textures", property);
-            return profile;
-        } catch (Exception var5) {
-            var5.printStackTrace();
-            return null;
-        }
+        String name = (owner.isEmpty() ? "Steve" : owner);
+        return PROFILES.computeIfAbsent(name + '\n' + data, key -> {
+            try {
+                GameProfile profile = new GameProfile(UUID.nameUUIDFromBytes(("BSLib:" + data).getBytes(StandardCharsets.UTF_8)), name);
+                PropertyMap propertyMap = profile.getProperties();
+                Property property = new Property("textures", data);
+                propertyMap.put("textures", property);
+                return profile;
+            } catch (Exception var5) {
+                var5.printStackTrace();
+                return null;
+            }
+        });
     }
     protected static SkullMeta applyTextureToMeta(SkullMeta meta, GameProfile profile) {
-        Class craftMetaSkull = Reflection.getCBCClass("inventory.CraftMetaSkull");
-        Class c = craftMetaSkull.cast(meta).getClass();
-        FieldAccessor field = FieldAccessor.getField(c, "profile", GameProfile.class);
-        field.set(meta, profile);
+        getProfileField().set(meta, profile);
         return meta;
     }
     protected static GameProfile getGameProfile(SkullMeta meta) {
-        Class craftMetaSkull = Reflection.getCBCClass("inventory.CraftMetaSkull");
-        FieldAccessor<GameProfile> field = FieldAccessor.getField(craftMetaSkull, "profile", GameProfile.class);
-        return field.get(meta);
+        return (GameProfile) getProfileField().get(meta);
+    }
+
+    /**
+     * Gets a player head with the texture (or owner if it is a name)
+     * The heads are built once and cached, this only returns a copy of it.
+     */
+    static ItemStack getSkull(String texture) {
+        String data = encodeTexture(texture);
+        ItemStack skull = SKULLS.computeIfAbsent(data, key -> {
+            ItemStack item = new ItemStack(Material.PLAYER_HEAD);
+            SkullMeta meta = (SkullMeta) item.getItemMeta();
+            if (key.length() > 17) {
+                applyTextureToMeta(meta, createProfile(key));
+            } else {
+                meta.setOwner(key);
+            }
+            item.setItemMeta(meta);
+            return item;
+        });
+        return skull.clone();
+    }
+
+    /**
+     * Turns a texture url into the Base64 texture value, anything else is returned as it is
+     */
+    protected static String encodeTexture(String texture) {
+        if (texture.startsWith("http")) return Base64Wrapper.encodeString("{\"textures\":{\"SKIN\":{\"url\":\"" + texture + "\"}}}");
+        return texture;
+    }
+
+    private static ReflectionCache.Accessor getProfileField() {
+        ReflectionCache.Accessor field = profileField;
+        if (field == null) {
+            try {
+                profileField = field = ReflectionCache.getField(Reflection.getCBCClass("inventory.CraftMetaSkull"), "profile");
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Cannot find the profile field in CraftMetaSkull", e);
+            }
+        }
+        return field;
     }
     protected static String getTexture (GameProfile profile) {
         PropertyMap propertyMap = profile.getProperties();
@@ -3,7 +3,6 @@ package lib.brainsynder.item.meta;
 import com.mojang.authlib.GameProfile;
 import lib.brainsynder.item.MetaHandler;
 import lib.brainsynder.nbt.StorageTagCompound;
-import lib.brainsynder.utils.Base64Wrapper;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 
@@ -36,9 +35,7 @@ public class SkullMetaHandler extends MetaHandler<SkullMeta> {
                 String texture = compound.getString("texture");
                 if (texture == null) return value;
                 if (texture.isEmpty()) return value;
-                if (texture.startsWith("http")) texture = Base64Wrapper.encodeString("{\"textures\":{\"SKIN\":{\"url\":\"" + texture + "\"}}}");
-                String finalTexture = texture;
-                return applyTextureToMeta(value, createProfile(finalTexture));
+                return applyTextureToMeta(value, createProfile(encodeTexture(texture)));
             }
             return value;
         });
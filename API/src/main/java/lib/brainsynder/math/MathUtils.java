@@ -285,6 +285,148 @@ public class MathUtils {
         return vector;
     }
 
+    /*
+     * Batch methods for point clouds (particle shapes), the points are stored as x, y, z, x, y, z...
+     * so drawing a shape does not need a Vector or Location per point.
+     * Each method has an in-place version and one that writes to another buffer (that is at least as long).
+     */
+
+    /**
+     * Rotates every point using yaw and pitch, the same as {@link #rotate(float, float, double, double, double)}
+     * but using the lookup table for the angles (within about 0.02 degrees)
+     *
+     * @param points x, y, z of every point, rotated in place
+     */
+    public static void rotate(float yaw, float pitch, double[] points) {
+        rotate(yaw, pitch, points, points);
+    }
+
+    public static void rotate(float yaw, float pitch, double[] points, double[] out) {
+        double sinyaw = sinDeg(yaw);
+        double cosyaw = cosDeg(yaw);
+        double sinpitch = sinDeg(pitch);
+        double cospitch = cosDeg(pitch);
+
+        double xx = sinyaw, xy = -cosyaw * sinpitch, xz = -cosyaw * cospitch;
+        double zx = -cosyaw, zy = -sinyaw * sinpitch, zz = -sinyaw * cospitch;
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            double x = points[i], y = points[i + 1], z = points[i + 2];
+            out[i] = (x * xx) + (y * xy) + (z * xz);
+            out[i + 1] = (y * cospitch) - (z * sinpitch);
+            out[i + 2] = (x * zx) + (y * zy) + (z * zz);
+        }
+    }
+
+    public static void rotate(float yaw, float pitch, float[] points) {
+        rotate(yaw, pitch, points, points);
+    }
+
+    public static void rotate(float yaw, float pitch, float[] points, float[] out) {
+        float sinyaw = sinDeg(yaw);
+        float cosyaw = cosDeg(yaw);
+        float sinpitch = sinDeg(pitch);
+        float cospitch = cosDeg(pitch);
+
+        float xx = sinyaw, xy = -cosyaw * sinpitch, xz = -cosyaw * cospitch;
+        float zx = -cosyaw, zy = -sinyaw * sinpitch, zz = -sinyaw * cospitch;
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            float x = points[i], y = points[i + 1], z = points[i + 2];
+            out[i] = (x * xx) + (y * xy) + (z * xz);
+            out[i + 1] = (y * cospitch) - (z * sinpitch);
+            out[i + 2] = (x * zx) + (y * zy) + (z * zz);
+        }
+    }
+
+    /**
+     * Moves every point by the offset (EG: to the location the shape is drawn at)
+     *
+     * @param points x, y, z of every point, moved in place
+     */
+    public static void translate(double[] points, double dx, double dy, double dz) {
+        translate(points, dx, dy, dz, points);
+    }
+
+    public static void translate(double[] points, double dx, double dy, double dz, double[] out) {
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            out[i] = points[i] + dx;
+            out[i + 1] = points[i + 1] + dy;
+            out[i + 2] = points[i + 2] + dz;
+        }
+    }
+
+    public static void translate(float[] points, float dx, float dy, float dz) {
+        translate(points, dx, dy, dz, points);
+    }
+
+    public static void translate(float[] points, float dx, float dy, float dz, float[] out) {
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            out[i] = points[i] + dx;
+            out[i + 1] = points[i + 1] + dy;
+            out[i + 2] = points[i + 2] + dz;
+        }
+    }
+
+    /**
+     * Scales every point from 0, 0, 0
+     *
+     * @param points x, y, z of every point, scaled in place
+     */
+    public static void scale(double[] points, double sx, double sy, double sz) {
+        scale(points, sx, sy, sz, points);
+    }
+
+    public static void scale(double[] points, double sx, double sy, double sz, double[] out) {
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            out[i] = points[i] * sx;
+            out[i + 1] = points[i + 1] * sy;
+            out[i + 2] = points[i + 2] * sz;
+        }
+    }
+
+    public static void scale(float[] points, float sx, float sy, float sz) {
+        scale(points, sx, sy, sz, points);
+    }
+
+    public static void scale(float[] points, float sx, float sy, float sz, float[] out) {
+        int length = points.length - (points.length % 3);
+        for (int i = 0; i < length; i += 3) {
+            out[i] = points[i] * sx;
+            out[i + 1] = points[i + 1] * sy;
+            out[i + 2] = points[i + 2] * sz;
+        }
+    }
+
+    /**
+     * Moves every point of one shape towards the same point in the other, the stage is clamped like
+     * {@link #lerp(double, double, double)}
+     *
+     * @param out Where the points are written, can be one of the inputs
+     */
+    public static void lerp(double[] from, double[] to, double stage, double[] out) {
+        if (Double.isNaN(stage) || (stage > 1)) {
+            stage = 1;
+        } else if (stage < 0) {
+            stage = 0;
+        }
+        int length = Math.min(from.length, to.length);
+        for (int i = 0; i < length; i++) out[i] = from[i] * (1 - stage) + to[i] * stage;
+    }
+
+    public static void lerp(float[] from, float[] to, float stage, float[] out) {
+        if (Float.isNaN(stage) || (stage > 1)) {
+            stage = 1;
+        } else if (stage < 0) {
+            stage = 0;
+        }
+        int length = Math.min(from.length, to.length);
+        for (int i = 0; i < length; i++) out[i] = from[i] * (1 - stage) + to[i] * stage;
+    }
+
     /**
      * Rounds the specified value to the amount of decimals specified
      *
@@ -4,7 +4,6 @@ import lib.brainsynder.utils.Colorize;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -13,9 +12,27 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.plugin.Plugin;
 
+import java.lang.reflect.Method;
 import java.util.UUID;
 
 public class IconMenu implements Listener, InventoryHolder {
+    // Which subclasses declare their own @EventHandler methods (bit 0), and if those include the
+    // click (bit 1) or close (bit 2) methods, which Bukkit then already calls for them
+    private static final ClassValue<Integer> HANDLERS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int handlers = 0;
+            for (Class<?> clazz = type; (clazz != null) && (clazz != IconMenu.class); clazz = clazz.getSuperclass()) {
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (!method.isAnnotationPresent(EventHandler.class)) continue;
+                    handlers |= 1;
+                    if (method.getName().equals("onInventoryClick")) handlers |= 2;
+                    if (method.getName().equals("onInventoryClosed")) handlers |= 4;
+                }
+            }
+            return handlers;
+        }
+    };
 
     // Title of the inventory
     private final String title;
@@ -33,6 +50,8 @@ public class IconMenu implements Listener, InventoryHolder {
     private UUID player;
     // Stores the Inventory itself
     private Inventory inventory;
+    // The pool this menu goes back to once it is closed (if any)
+    private MenuPool pool = null;
 
     public IconMenu(String title, int size, int pageCount, Plugin core) {
         this.title = title;
@@ -46,7 +65,18 @@ public class IconMenu implements Listener, InventoryHolder {
         }
         this.currentPage = 0;
         this.pageCount = pageCount;
-        core.getServer().getPluginManager().registerEvents(this, core);
+        MenuDispatcher.register(core);
+        // The menu itself is handled by the dispatcher, only handlers added by a subclass need registering
+        if (hasHandlers(0)) core.getServer().getPluginManager().registerEvents(this, core);
+    }
+
+    /**
+     * Checks if the subclass declares its own @EventHandler methods
+     *
+     * @param bit 0 for any handler, 1 for onInventoryClick, 2 for onInventoryClosed
+     */
+    boolean hasHandlers(int bit) {
+        return ((HANDLERS.get(getClass()) >> bit) & 1) != 0;
     }
 
     public Player getPlayer() {
@@ -60,7 +90,9 @@ public class IconMenu implements Listener, InventoryHolder {
 
     public void open(Player player) {
         this.player = player.getUniqueId();
-        inventory = Bukkit.createInventory(this, size, Colorize.translateBungeeHex(title));
+        // The inventory is kept after closing so reused menus do not need a new one,
+        // unless someone is still looking at it
+        if ((inventory == null) || !inventory.getViewers().isEmpty()) inventory = Bukkit.createInventory(this, size, Colorize.translateBungeeHex(title));
         updateContents();
         player.openInventory(inventory);
     }
@@ -99,8 +131,25 @@ public class IconMenu implements Listener, InventoryHolder {
         }
     }
 
+    /**
+     * Puts the menu back on its first page so it can be opened again
+     */
+    void reset() {
+        this.currentPage = 0;
+        this.player = null;
+    }
+
+    void setPool(MenuPool pool) {
+        this.pool = pool;
+    }
+
+    public Plugin getPlugin() {
+        return core;
+    }
+
     public void destroy() {
-        HandlerList.unregisterAll(this);
+        if (hasHandlers(0)) HandlerList.unregisterAll(this);
+        pool = null;
         core = null;
         optionPages = null;
         player = null;
@@ -111,17 +160,27 @@ public class IconMenu implements Listener, InventoryHolder {
         return pageCount;
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
+    /**
+     * Called by the {@link MenuDispatcher} when this menus inventory is closed
+     */
     public void onInventoryClosed(InventoryCloseEvent event){
+        if (event.getInventory().getHolder() != this) return;
+        if (pool != null) {
+            pool.release(this);
+            return;
+        }
         destroy();
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
+    /**
+     * Called by the {@link MenuDispatcher} when this menus inventory is clicked
+     */
     public void onInventoryClick(InventoryClickEvent event) {
         // Checking if the holder is an instance of IconMenu to prevent potential conflict title comparison can cause.
         if (event.getInventory().getHolder() == this) {
             // Cancel the event, stopping the player pick up the item.
             event.setCancelled(true);
+            if (optionPages == null) return; // Menu was already destroyed
             // Get the raw slot (NOT the slot)
             int slot = event.getRawSlot();
             OptionPage currentPage = this.optionPages[this.currentPage];
@@ -143,6 +202,6 @@ public class IconMenu implements Listener, InventoryHolder {
 
     @Override
     public Inventory getInventory() {
-        return null;
+        return inventory;
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package lib.brainsynder.menu;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One listener per plugin that hands inventory events to the {@link IconMenu} that owns
+ * the inventory (found through its {@link InventoryHolder}), rather than every open menu
+ * registering its own listener and checking every event.
+ */
+final class MenuDispatcher implements Listener {
+    private static final Map<Plugin, MenuDispatcher> DISPATCHERS = new HashMap<>();
+
+    private final Plugin plugin;
+
+    private MenuDispatcher(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Makes sure the plugin has a dispatcher registered
+     */
+    static void register(Plugin plugin) {
+        DISPATCHERS.computeIfAbsent(plugin, owner -> {
+            MenuDispatcher dispatcher = new MenuDispatcher(owner);
+            owner.getServer().getPluginManager().registerEvents(dispatcher, owner);
+            return dispatcher;
+        });
+    }
+
+    private IconMenu getMenu(InventoryHolder holder) {
+        if (!(holder instanceof IconMenu)) return null;
+        IconMenu menu = (IconMenu) holder;
+        // Another plugin using the same menu classes has its own dispatcher
+        return (menu.getPlugin() == plugin) ? menu : null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClick(InventoryClickEvent event) {
+        IconMenu menu = getMenu(event.getInventory().getHolder());
+        // Menus that made it an @EventHandler already get it from Bukkit
+        if ((menu != null) && !menu.hasHandlers(1)) menu.onInventoryClick(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClosed(InventoryCloseEvent event) {
+        IconMenu menu = getMenu(event.getInventory().getHolder());
+        if ((menu != null) && !menu.hasHandlers(2)) menu.onInventoryClosed(event);
+    }
+
+    @EventHandler
+    public void onDisable(PluginDisableEvent event) {
+        // Bukkit removes the listener itself, this just lets it register again if the plugin is re-enabled
+        if (event.getPlugin() == plugin) DISPATCHERS.remove(plugin);
+    }
+}
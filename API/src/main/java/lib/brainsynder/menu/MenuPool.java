@@ -0,0 +1,63 @@
+package lib.brainsynder.menu;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Keeps closed menus around so they can be opened again, instead of building
+ * the menu, its pages and its inventory every time it is opened.
+ *
+ * <pre>
+ * MenuPool pool = new MenuPool(() -> buildShopMenu(plugin), 20);
+ * pool.acquire().open(player);
+ * </pre>
+ *
+ * A menu taken from the pool goes back to it once its inventory is closed,
+ * unless it was destroyed (See {@link OptionClickEvent#setWillDestroy(boolean)}).
+ */
+public class MenuPool {
+    private final Supplier<IconMenu> factory;
+    private final int maxIdle;
+    private final Deque<IconMenu> idle = new ArrayDeque<>();
+
+    /**
+     * @param factory Builds a new menu when none are idle
+     * @param maxIdle The most closed menus that will be kept around
+     */
+    public MenuPool(Supplier<IconMenu> factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Gets an idle menu (back on its first page), or builds a new one
+     */
+    public IconMenu acquire() {
+        IconMenu menu = idle.pollFirst();
+        if (menu == null) menu = factory.get();
+        menu.setPool(this);
+        return menu;
+    }
+
+    void release(IconMenu menu) {
+        if (idle.size() >= maxIdle) {
+            menu.destroy();
+            return;
+        }
+        menu.reset();
+        idle.addFirst(menu);
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Destroys all the idle menus
+     */
+    public void clear() {
+        IconMenu menu;
+        while ((menu = idle.pollFirst()) != null) menu.destroy();
+    }
+}
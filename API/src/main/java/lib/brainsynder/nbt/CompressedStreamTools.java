@@ -32,6 +32,41 @@ public class CompressedStreamTools {
         }
     }
 
+    /**
+     * Load the gzipped compound from the inputstream, nested compounds and lists are
+     * kept undecoded until they are requested with {@link StorageTagCompound#getTag(String)}
+     */
+    public static StorageTagCompound readCompressedLazy(InputStream is) throws IOException {
+        DataInputStream datainputstream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(is)));
+
+        try {
+            return readLazy(datainputstream);
+        } finally {
+            datainputstream.close();
+        }
+    }
+
+    /**
+     * Reads the root compound from the DataInput, nested compounds and lists are
+     * kept undecoded until they are requested
+     */
+    public static StorageTagCompound readLazy(DataInput input) throws IOException {
+        byte b0 = input.readByte();
+        if (b0 != 10) throw new IOException("Root tag must be a named compound tag");
+
+        input.readUTF();
+        StorageTagCompound compound = new StorageTagCompound();
+        compound.read(input, 0, NBTSizeTracker.INFINITE, true);
+        return compound;
+    }
+
+    /**
+     * Opens a {@link StorageTagReader} over the gzipped inputstream, closing the reader closes the stream.
+     */
+    public static StorageTagReader openReader(InputStream is) throws IOException {
+        return new StorageTagReader(new DataInputStream(new BufferedInputStream(new GZIPInputStream(is))));
+    }
+
     /**
      * Write the compound, gzipped, to the outputstream.
      */
@@ -111,6 +111,14 @@ public class StorageTagCompound extends StorageBase {
     }
 
     void read(DataInput input, int depth, NBTSizeTracker sizeTracker) throws IOException {
+        read(input, depth, sizeTracker, false);
+    }
+
+    /**
+     * Reads the compound, if lazy is true any nested compounds/lists are kept as raw bytes
+     * and only decoded when they are requested
+     */
+    void read(DataInput input, int depth, NBTSizeTracker sizeTracker, boolean lazy) throws IOException {
         sizeTracker.read(384L);
 
         if (depth > 512) {
@@ -122,7 +130,9 @@ public class StorageTagCompound extends StorageBase {
             while ((b0 = readType(input, sizeTracker)) != 0) {
                 String s = readKey(input, sizeTracker);
                 sizeTracker.read(224 + 16 * s.length());
-                StorageBase nbtbase = readNBT(b0, s, input, depth + 1, sizeTracker);
+                StorageBase nbtbase = (lazy && StorageTagLazy.isDeferred(b0))
+                        ? StorageTagLazy.read(b0, input, depth + 1, sizeTracker)
+                        : readNBT(b0, s, input, depth + 1, sizeTracker);
 
                 if (this.tagMap.put(s, nbtbase) != null) {
                     sizeTracker.read(288L);
@@ -296,7 +306,40 @@ public class StorageTagCompound extends StorageBase {
      * gets a generic tag with the specified name
      */
     public StorageBase getTag(String key) {
-        return this.tagMap.get(key);
+        return fetch(key);
+    }
+
+    /**
+     * Gets the tag stored under the key, decoding it first if it was read lazily
+     *
+     * <p>The decoded tag replaces the lazy one in the map (so changes made to it are kept),
+     * which means reading a lazily read compound is a write as well. Like the rest of the
+     * compound this is not thread safe, anything that reads it from another thread should be
+     * given a {@link #copy()} or the written bytes instead (See {@link lib.brainsynder.files.StorageWriter}).</p>
+     */
+    private StorageBase fetch(String key) {
+        StorageBase base = this.tagMap.get(key);
+        if (base instanceof StorageTagLazy) {
+            base = ((StorageTagLazy) base).decode();
+            this.tagMap.put(key, base);
+        }
+        return base;
+    }
+
+    private void fetchAll() {
+        for (Map.Entry<String, StorageBase> entry : this.tagMap.entrySet()) {
+            if (entry.getValue() instanceof StorageTagLazy)
+                entry.setValue(((StorageTagLazy) entry.getValue()).decode());
+        }
+    }
+
+    /**
+     * Stores every tag from the other compound in this one. Unlike {@link #merge(StorageTagCompound)}
+     * the tags are neither copied nor decoded, so both compounds will share them.
+     */
+    public StorageTagCompound putAll(StorageTagCompound other) {
+        this.tagMap.putAll(other.tagMap);
+        return this;
     }
 
     /**
@@ -468,7 +511,7 @@ public class StorageTagCompound extends StorageBase {
      * Retrieves a byte value using the specified key, or 0 if no such key was stored.
      */
     public byte getByte(String key) {
-        StorageBase storage = this.tagMap.get(key);
+        StorageBase storage = fetch(key);
         if (storage.getId() == 1) {
             return ((StorageTagByte) storage).getByte();
         }
@@ -548,7 +591,7 @@ public class StorageTagCompound extends StorageBase {
     public String getValue(String key) {
         try {
             if (this.hasKey(key)) {
-                return fetchValue(tagMap.get(key));
+                return fetchValue(fetch(key));
             }
         } catch (ClassCastException ignored) {
         }
@@ -596,7 +639,7 @@ public class StorageTagCompound extends StorageBase {
     public byte[] getByteArray(String key) {
         try {
             if (this.hasKey(key, 7)) {
-                return ((IStorageList<byte[]>) this.tagMap.get(key)).getList();
+                return ((IStorageList<byte[]>) fetch(key)).getList();
             }
         } catch (ClassCastException ignored) {
         }
@@ -610,7 +653,7 @@ public class StorageTagCompound extends StorageBase {
     public int[] getIntArray(String key) {
         try {
             if (this.hasKey(key, 11)) {
-                return ((IStorageList<int[]>) this.tagMap.get(key)).getList();
+                return ((IStorageList<int[]>) fetch(key)).getList();
             }
         } catch (ClassCastException ignored) {
         }
@@ -629,7 +672,7 @@ public class StorageTagCompound extends StorageBase {
     public StorageTagCompound getCompoundTag(String key) {
         try {
             if (this.hasKey(key, 10)) {
-                return (StorageTagCompound) this.tagMap.get(key);
+                return (StorageTagCompound) fetch(key);
             }
         } catch (ClassCastException ignored) {
         }
@@ -643,7 +686,7 @@ public class StorageTagCompound extends StorageBase {
     public StorageTagList getTagList(String key, int type) {
         try {
             if (this.getTagId(key) == 9) {
-                StorageTagList nbttaglist = (StorageTagList) this.tagMap.get(key);
+                StorageTagList nbttaglist = (StorageTagList) fetch(key);
 
                 if (!nbttaglist.hasNoTags() && nbttaglist.getTagType() != type) {
                     return new StorageTagList();
@@ -698,7 +741,7 @@ public class StorageTagCompound extends StorageBase {
                 stringbuilder.append(',');
             }
 
-            stringbuilder.append(match(s)).append(':').append(this.tagMap.get(s));
+            stringbuilder.append(match(s)).append(':').append(fetch(s));
         }
 
         return stringbuilder.append('}').toString();
@@ -725,10 +768,15 @@ public class StorageTagCompound extends StorageBase {
     }
 
     public boolean equals(Object instance) {
-        return super.equals(instance) && Objects.equals(this.tagMap.entrySet(), ((StorageTagCompound) instance).tagMap.entrySet());
+        if (!super.equals(instance)) return false;
+        StorageTagCompound other = (StorageTagCompound) instance;
+        this.fetchAll();
+        other.fetchAll();
+        return Objects.equals(this.tagMap.entrySet(), other.tagMap.entrySet());
     }
 
     public int hashCode() {
+        fetchAll();
         return super.hashCode() ^ this.tagMap.hashCode();
     }
 
@@ -747,7 +795,7 @@ public class StorageTagCompound extends StorageBase {
      */
     public StorageTagCompound merge(StorageTagCompound other) {
         for (String s : other.tagMap.keySet()) {
-            StorageBase nbtbase = other.tagMap.get(s);
+            StorageBase nbtbase = other.fetch(s);
 
             if (nbtbase.getId() == 10) {
                 if (this.hasKey(s, 10)) {
@@ -0,0 +1,102 @@
+package lib.brainsynder.nbt;
+
+import lib.brainsynder.nbt.other.NBTSizeTracker;
+
+import java.io.*;
+
+/**
+ * Holds the undecoded payload of a compound or list that was read in lazy mode.
+ *
+ * <p>The owning {@link StorageTagCompound} swaps it out for the real tag the first time the
+ * key is requested. Writing it back out just copies the stored bytes.</p>
+ */
+final class StorageTagLazy extends StorageBase {
+    private final byte id;
+    private byte[] data = new byte[0];
+    private int depth = 0;
+
+    private StorageTagLazy(byte id) {
+        this.id = id;
+    }
+
+    private StorageTagLazy(byte id, byte[] data, int depth) {
+        this.id = id;
+        this.data = data;
+        this.depth = depth;
+    }
+
+    static boolean isDeferred(byte id) {
+        return (id == 9) || (id == 10);
+    }
+
+    static StorageTagLazy read(byte id, DataInput input, int depth, NBTSizeTracker sizeTracker) throws IOException {
+        StorageTagLazy tag = new StorageTagLazy(id);
+        tag.read(input, depth, sizeTracker);
+        return tag;
+    }
+
+    /**
+     * Decodes the stored payload. Compounds are decoded lazily again, so only one level
+     * of the tree is expanded at a time.
+     */
+    StorageBase decode() {
+        StorageBase base = createNewByType(id);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+
+        try {
+            if (base instanceof StorageTagCompound) {
+                ((StorageTagCompound) base).read(input, depth, NBTSizeTracker.INFINITE, true);
+            } else {
+                base.read(input, depth, NBTSizeTracker.INFINITE);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to decode lazily read " + getName(id), e);
+        }
+        return base;
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.write(this.data);
+    }
+
+    /**
+     * Copies the payload of a tag of this type out of the input, without decoding it
+     */
+    void read(DataInput input, int depth, NBTSizeTracker sizeTracker) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        StorageTagReader.transferPayload(id, input, new DataOutputStream(bytes), depth);
+        sizeTracker.read(8L * bytes.size());
+        this.data = bytes.toByteArray();
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the type byte for the tag (The type of the tag this will decode into).
+     */
+    public byte getId() {
+        return this.id;
+    }
+
+    public String toString() {
+        return decode().toString();
+    }
+
+    /**
+     * Creates a clone of the tag. The payload is never modified so it can be shared.
+     */
+    public StorageBase copy() {
+        return new StorageTagLazy(this.id, this.data, this.depth);
+    }
+
+    public boolean hasNoTags() {
+        return decode().hasNoTags();
+    }
+
+    public boolean equals(Object instance) {
+        return decode().equals(instance);
+    }
+
+    public int hashCode() {
+        return decode().hashCode();
+    }
+}
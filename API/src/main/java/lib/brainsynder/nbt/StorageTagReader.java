@@ -0,0 +1,310 @@
+package lib.brainsynder.nbt;
+
+import lib.brainsynder.nbt.other.NBTSizeTracker;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A pull-style reader for binary NBT data.
+ *
+ * <p>Instead of building the whole {@link StorageTagCompound} tree, the reader walks the
+ * stream one entry at a time. Values that are never asked for via {@link #getValue()} are
+ * skipped without being decoded, and whole compounds/lists can be skipped with
+ * {@link #skipContainer()} or materialized with {@link #readTag()}.</p>
+ *
+ * <pre>
+ * try (StorageTagReader reader = CompressedStreamTools.openReader(stream)) {
+ *     while (reader.next() != StorageTagReader.Event.END_DOCUMENT) {
+ *         if ((reader.getDepth() == 1) &amp;&amp; "coins".equals(reader.getKey())) return reader.getValue();
+ *     }
+ * }
+ * </pre>
+ */
+public class StorageTagReader implements Closeable {
+    private static final int MAX_DEPTH = 512;
+
+    private final DataInput input;
+    private final NBTSizeTracker sizeTracker;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private Event event = null;
+    private String key = null;
+    private byte type = 0;
+    private boolean valuePending = false;
+    private boolean containerFresh = false;
+
+    public StorageTagReader(DataInput input) {
+        this(input, NBTSizeTracker.INFINITE);
+    }
+
+    public StorageTagReader(DataInput input, NBTSizeTracker sizeTracker) {
+        this.input = input;
+        this.sizeTracker = sizeTracker;
+    }
+
+    /**
+     * Advances the reader to the next event, skipping the current value or container
+     * contents if they were not read.
+     */
+    public Event next() throws IOException {
+        if (event == Event.END_DOCUMENT) return event;
+        if (valuePending) {
+            transferPayload(type, input, null, frames.size());
+            valuePending = false;
+        }
+        containerFresh = false;
+
+        if (event == null) {
+            type = input.readByte();
+            if (type == 0) return event = Event.END_DOCUMENT;
+            key = input.readUTF();
+            return begin(type);
+        }
+
+        Frame frame = frames.peek();
+        if (frame == null) return event = Event.END_DOCUMENT;
+
+        if (frame.list) {
+            if (!frame.headerRead) readListHeader(frame);
+            if (frame.remaining <= 0) {
+                frames.pop();
+                key = null;
+                return event = Event.END_LIST;
+            }
+            frame.remaining--;
+            key = null;
+            type = frame.elementType;
+            return begin(type);
+        }
+
+        byte id = input.readByte();
+        if (id == 0) {
+            frames.pop();
+            key = null;
+            return event = Event.END_COMPOUND;
+        }
+        type = id;
+        key = input.readUTF();
+        return begin(id);
+    }
+
+    /**
+     * The event the reader is currently positioned on.
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * The key of the current entry, or null if the entry is a list element.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The NBT type byte of the current entry.
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * How many compounds/lists the reader is currently inside of.
+     */
+    public int getDepth() {
+        return frames.size();
+    }
+
+    /**
+     * Decodes the value of the current {@link Event#VALUE} entry.
+     */
+    public StorageBase getValue() throws IOException {
+        if (!valuePending) throw new IllegalStateException("The reader is not positioned on an unread value (" + event + ")");
+        valuePending = false;
+
+        StorageBase base = StorageBase.createNewByType(type);
+        base.read(input, frames.size(), sizeTracker);
+        return base;
+    }
+
+    /**
+     * Materializes the current entry as a tag.
+     *
+     * <p>If the reader is positioned on a {@link Event#BEGIN_COMPOUND} or {@link Event#BEGIN_LIST}
+     * the whole container is read and the reader moves to the matching end event.</p>
+     */
+    public StorageBase readTag() throws IOException {
+        if (valuePending) return getValue();
+        Frame frame = freshContainer();
+
+        StorageBase base = StorageBase.createNewByType(type);
+        base.read(input, frames.size(), sizeTracker);
+        finishContainer(frame);
+        return base;
+    }
+
+    /**
+     * Skips the rest of the container the reader has just entered without decoding it.
+     */
+    public void skipContainer() throws IOException {
+        Frame frame = freshContainer();
+        transferPayload(type, input, null, frames.size());
+        finishContainer(frame);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (input instanceof Closeable) ((Closeable) input).close();
+    }
+
+    private Event begin(byte id) {
+        if (id == 10 || id == 9) {
+            if (frames.size() >= MAX_DEPTH)
+                throw new RuntimeException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+            frames.push(new Frame(id == 9));
+            containerFresh = true;
+            return event = (id == 10) ? Event.BEGIN_COMPOUND : Event.BEGIN_LIST;
+        }
+
+        valuePending = true;
+        return event = Event.VALUE;
+    }
+
+    private void readListHeader(Frame frame) throws IOException {
+        frame.headerRead = true;
+        frame.elementType = input.readByte();
+        frame.remaining = input.readInt();
+        if (frame.elementType == 0 && frame.remaining > 0) throw new RuntimeException("Missing type on ListTag");
+    }
+
+    private Frame freshContainer() {
+        if (!containerFresh || frames.isEmpty())
+            throw new IllegalStateException("The reader is not positioned at the start of a container (" + event + ")");
+        return frames.peek();
+    }
+
+    private void finishContainer(Frame frame) {
+        frames.pop();
+        containerFresh = false;
+        key = null;
+        event = frame.list ? Event.END_LIST : Event.END_COMPOUND;
+    }
+
+    /**
+     * Walks the payload of a tag with the given type, copying the raw bytes to the output
+     * (or just skipping them if the output is null) without creating any tag objects.
+     */
+    static void transferPayload(byte id, DataInput input, DataOutput output, int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new RuntimeException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+
+        switch (id) {
+            case 0:
+                return;
+            case 1:
+                transfer(input, output, 1);
+                return;
+            case 2:
+                transfer(input, output, 2);
+                return;
+            case 3:
+            case 5:
+                transfer(input, output, 4);
+                return;
+            case 4:
+            case 6:
+                transfer(input, output, 8);
+                return;
+            case 7:
+                transfer(input, output, transferInt(input, output));
+                return;
+            case 8:
+                int length = input.readUnsignedShort();
+                if (output != null) output.writeShort(length);
+                transfer(input, output, length);
+                return;
+            case 9:
+                byte type = input.readByte();
+                if (output != null) output.writeByte(type);
+                int size = transferInt(input, output);
+                if (type == 0 && size > 0) throw new RuntimeException("Missing type on ListTag");
+                for (int i = 0; i < size; i++) transferPayload(type, input, output, depth + 1);
+                return;
+            case 10:
+                byte entry;
+                while ((entry = input.readByte()) != 0) {
+                    if (output != null) output.writeByte(entry);
+                    int keyLength = input.readUnsignedShort();
+                    if (output != null) output.writeShort(keyLength);
+                    transfer(input, output, keyLength);
+                    transferPayload(entry, input, output, depth + 1);
+                }
+                if (output != null) output.writeByte(0);
+                return;
+            case 11:
+                transfer(input, output, 4L * transferInt(input, output));
+                return;
+            case 12:
+                transfer(input, output, 8L * transferInt(input, output));
+                return;
+            default:
+                throw new IOException("Unknown NBT tag type: " + id);
+        }
+    }
+
+    private static int transferInt(DataInput input, DataOutput output) throws IOException {
+        int value = input.readInt();
+        if (value < 0) throw new IOException("Negative NBT array length: " + value);
+        if (output != null) output.writeInt(value);
+        return value;
+    }
+
+    private static void transfer(DataInput input, DataOutput output, long length) throws IOException {
+        if (output == null) {
+            while (length > 0) {
+                int skipped = input.skipBytes((int) Math.min(length, Integer.MAX_VALUE));
+                if (skipped <= 0) {
+                    input.readByte(); // Either moves forward one byte or throws EOFException
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+            return;
+        }
+
+        if (length <= 8) {
+            for (int i = 0; i < length; i++) output.writeByte(input.readByte());
+            return;
+        }
+
+        byte[] buffer = new byte[(int) Math.min(length, 8192)];
+        while (length > 0) {
+            int chunk = (int) Math.min(length, buffer.length);
+            input.readFully(buffer, 0, chunk);
+            output.write(buffer, 0, chunk);
+            length -= chunk;
+        }
+    }
+
+    public enum Event {
+        BEGIN_COMPOUND,
+        END_COMPOUND,
+        BEGIN_LIST,
+        END_LIST,
+        VALUE,
+        END_DOCUMENT
+    }
+
+    private static class Frame {
+        private final boolean list;
+        private boolean headerRead = false;
+        private byte elementType = 0;
+        private int remaining = 0;
+
+        private Frame(boolean list) {
+            this.list = list;
+        }
+    }
+}
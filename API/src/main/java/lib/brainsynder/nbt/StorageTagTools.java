@@ -12,8 +12,10 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
+import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,6 +31,8 @@ public class StorageTagTools {
     private static final Method asCopy;
     private static final Method asBukkitCopy;
     private static final Method parseString;
+    private static final Method writeBinary;
+    private static final Method readBinary;
 
     static {
         Class parser = Reflection.getNmsClass("MojangsonParser", "nbt");
@@ -48,12 +52,20 @@ public class StorageTagTools {
         save = Reflection.getMethod(stackClass, new String[]{"save", "b"}, nbtTag);
         toString = Reflection.getMethod(nbtTag, "toString");
         asCopy = Reflection.getMethod(craftStack, "asNMSCopy", ItemStack.class);
+
+        // The binary NBT format is shared with CompressedStreamTools, so the tags can be
+        // handed over as raw bytes instead of being printed and re-parsed as Mojangson
+        Class streamTools = Reflection.getNmsClass("NBTCompressedStreamTools", "nbt");
+        writeBinary = findMethod(streamTools, nbtTag, DataOutput.class);
+        Method read = findMethod(streamTools, null, DataInput.class);
+        if (read == null) read = findMethod(streamTools, null, DataInputStream.class); // 1.12 and older
+        readBinary = read;
     }
 
     public static ItemStack toItemStack (StorageTagCompound compound) {
         if (!compound.hasKey("id")) return new ItemStack(Material.AIR); // Checks if it is an ItemStacks NBT/STC
 
-        Object nbt = Reflection.invoke(parseString, null, compound.toString());
+        Object nbt = toNBTTag(compound);
         Object nmsStack;
         if (ServerVersion.isEqualOld(ServerVersion.v1_12_R1)) {
             nmsStack = Reflection.initiateClass(newStack, nbt); // Will make it an NMS ItemStack
@@ -66,6 +78,11 @@ public class StorageTagTools {
 
     public static StorageTagCompound fromItemStack(ItemStack item) {
         Object nbt = Reflection.invoke(save, asNMSCopy(item), newNBTTag(nbtTag));
+        if ((nbt != null) && (writeBinary != null)) {
+            StorageTagCompound compound = fromNBTBinary(nbt);
+            if (compound != null) return compound;
+        }
+
         String json = (String) Reflection.invoke(toString, nbt);
 
         // Removes the extra formatting that Spigot adds
@@ -184,9 +201,74 @@ public class StorageTagTools {
     }
 
     public static <T> T toNBTTag (StorageTagCompound compound) {
+        if (readBinary != null) {
+            Object nbt = toNBTBinary(compound);
+            if (nbt != null) return (T) nbt;
+        }
         return (T) Reflection.invoke(parseString, null, compound.toString());
     }
 
+    /**
+     * Converts an NMS NBTTagCompound by writing it with the servers binary NBT writer
+     * and reading the bytes straight back in as a {@link StorageTagCompound}
+     *
+     * @return The converted compound, or null if the conversion failed
+     */
+    private static StorageTagCompound fromNBTBinary (Object nbt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream output = new DataOutputStream(bytes);
+            writeBinary.invoke(null, nbt, output);
+            output.flush();
+
+            StorageBase base = CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            if (base instanceof StorageTagCompound) return (StorageTagCompound) base;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Converts the {@link StorageTagCompound} into an NMS NBTTagCompound through the
+     * binary NBT format rather than the Mojangson parser
+     *
+     * @return The NMS compound, or null if the conversion failed
+     */
+    private static Object toNBTBinary (StorageTagCompound compound) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream output = new DataOutputStream(bytes);
+            CompressedStreamTools.writeTag(compound, output);
+            output.flush();
+
+            return readBinary.invoke(null, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the static NBTCompressedStreamTools method that takes the given stream type
+     * (and the compound first if one is supplied), regardless of the obfuscated name
+     */
+    private static Method findMethod (Class<?> streamTools, Class<?> compound, Class<?> stream) {
+        if (streamTools == null) return null;
+        for (String name : new String[]{"write", "read", "a"}) {
+            try {
+                Method method = (compound == null)
+                        ? streamTools.getDeclaredMethod(name, stream)
+                        : streamTools.getDeclaredMethod(name, compound, stream);
+                if (!Modifier.isStatic(method.getModifiers())) continue;
+                if ((compound == null) && (method.getReturnType() != nbtTag)) continue;
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException ignored) {}
+        }
+        return null;
+    }
+
     private static Object asNMSCopy (ItemStack stack) {
         return Reflection.invoke(asCopy, null, stack);
     }
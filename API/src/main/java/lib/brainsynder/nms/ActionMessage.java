@@ -2,21 +2,46 @@ package lib.brainsynder.nms;
 
 import lib.brainsynder.utils.Colorize;
 import net.md_5.bungee.api.ChatMessageType;
-import net.md_5.bungee.chat.ComponentSerializer;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.entity.Player;
 
 import java.util.Collection;
 
 public class ActionMessage {
     private static ActionMessage actionMessage = null;
+    // The last message that was sent, action bars tend to send the same text to everyone every tick
+    private volatile Built last = null;
 
     public void sendMessage(Collection<? extends Player> players, String message) {
-        for (Player player : players)
-            sendMessage(player, message);
+        broadcast(players, message);
     }
 
     public void sendMessage(Player player, String message) {
-        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, ComponentSerializer.parse("{\"text\": \"" + Colorize.translateBungeeHex(message) + "\"}"));
+        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, toComponents(message));
+    }
+
+    /**
+     * Sends the message to all the players, the components are only built once for all of them
+     */
+    public void broadcast(Collection<? extends Player> players, String message) {
+        if (players.isEmpty()) return;
+        BaseComponent[] components = toComponents(message);
+        for (Player player : players)
+            player.spigot().sendMessage(ChatMessageType.ACTION_BAR, components);
+    }
+
+    /**
+     * The message colorized and turned into chat components
+     * The same array is sent to every player, so it should not be changed.
+     */
+    public BaseComponent[] toComponents(String message) {
+        Built built = last;
+        if ((built != null) && built.message.equals(message)) return built.components;
+
+        BaseComponent[] components = TextComponent.fromLegacyText(Colorize.translateBungeeHex(message));
+        last = new Built(message, components);
+        return components;
     }
 
     public static ActionMessage getInstance() {
@@ -24,4 +49,14 @@ public class ActionMessage {
         actionMessage = new ActionMessage();
         return actionMessage;
     }
-}
\ No newline at end of file
+
+    private static final class Built {
+        private final String message;
+        private final BaseComponent[] components;
+
+        private Built(String message, BaseComponent[] components) {
+            this.message = message;
+            this.components = components;
+        }
+    }
+}
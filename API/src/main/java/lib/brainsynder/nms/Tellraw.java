@@ -1,6 +1,8 @@
 package lib.brainsynder.nms;
 
 import lib.brainsynder.nms.key.BaseTellrawMessage;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -23,12 +25,32 @@ public abstract class Tellraw {
     public abstract void send(CommandSender sender);
     public abstract void send(Player player);
     public void send(Iterable<Player> players) {
-        for (Player player : players)
-            send (player);
+        BaseComponent[] components = null;
+        for (Player player : players) {
+            if (components == null) components = toComponents();
+            player.spigot().sendMessage(components);
+        }
     }
     public void send(Collection<? extends Player> players) {
+        broadcast(players);
+    }
+
+    /**
+     * The message as chat components
+     * The same array is sent to every player, so it should not be changed.
+     */
+    public BaseComponent[] toComponents() {
+        return ComponentSerializer.parse(toJSONString());
+    }
+
+    /**
+     * Sends the message to all the players, the JSON is only parsed once for all of them
+     */
+    public void broadcast(Collection<? extends Player> players) {
+        if (players.isEmpty()) return;
+        BaseComponent[] components = toComponents();
         for (Player player : players)
-            send (player);
+            player.spigot().sendMessage(components);
     }
 
 
@@ -7,6 +7,7 @@ import com.google.gson.stream.JsonWriter;
 import lib.brainsynder.nms.Tellraw;
 import lib.brainsynder.utils.Colorize;
 import lib.brainsynder.utils.MessagePart;
+import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.chat.ComponentSerializer;
 import org.bukkit.ChatColor;
 import org.bukkit.Color;
@@ -24,6 +25,9 @@ public class BaseTellrawMessage extends Tellraw {
     private List<MessagePart> messageParts = new ArrayList<>();
     private String jsonString = null;
     private boolean dirty = false;
+    // Parsed from componentsJson, reused until the message changes
+    private BaseComponent[] components = null;
+    private String componentsJson = null;
 
     /**
      * Will convert the string from "&cString" to the JSON equivalent used for the tellraw command
@@ -153,6 +157,7 @@ public class BaseTellrawMessage extends Tellraw {
     public BaseTellrawMessage removeLastPart() {
         if (messageParts.isEmpty()) return this;
         messageParts.remove( (messageParts.size() - 1) );
+        this.dirty = true;
         return this;
     }
 
@@ -199,9 +204,20 @@ public class BaseTellrawMessage extends Tellraw {
         sender.sendMessage(builder.toString());
     }
 
+    @Override
+    public BaseComponent[] toComponents() {
+        String json = toJSONString();
+        // toJSONString() returns the same String until the message is changed
+        if ((components == null) || (componentsJson != json)) {
+            components = ComponentSerializer.parse(json);
+            componentsJson = json;
+        }
+        return components;
+    }
+
     @Override
     public void send(Player player) {
-        player.spigot().sendMessage(ComponentSerializer.parse(toJSONString()));
+        player.spigot().sendMessage(toComponents());
     }
 
 
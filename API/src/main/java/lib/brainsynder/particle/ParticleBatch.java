@@ -0,0 +1,184 @@
+package lib.brainsynder.particle;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+
+/**
+ * Collects particle emissions during a tick and sends them all at once.
+ *
+ * <p>Instead of each emission searching for nearby players, the emissions are grouped by chunk.
+ * The players that could see a chunk are found once from the worlds player list, and each
+ * emission is then only sent to the players within the view distance of it.</p>
+ *
+ * <pre>
+ * ParticleBatch batch = new ParticleBatch(plugin);
+ * for (Location point : points) batch.queue(maker, point);
+ * // Everything queued this tick gets sent on the next one
+ * </pre>
+ *
+ * Should only be used on the main thread.
+ */
+public class ParticleBatch {
+    // Distance from a chunk's center to its corner (horizontally)
+    private static final double CHUNK_RADIUS = Math.sqrt(8 * 8 * 2);
+
+    private final Plugin plugin;
+    private final double viewDistance;
+    private final Map<World, Map<Long, List<Emission>>> queued = new HashMap<>();
+    private int queuedCount = 0;
+    private boolean flushScheduled = false;
+
+    private long emissionCount = 0;
+    private long spawnCount = 0;
+
+    public ParticleBatch(Plugin plugin) {
+        this(plugin, 100);
+    }
+
+    /**
+     * @param plugin       The plugin the flush task is scheduled for
+     * @param viewDistance How far away (in blocks) players can be and still get the particles
+     */
+    public ParticleBatch(Plugin plugin, double viewDistance) {
+        this.plugin = plugin;
+        this.viewDistance = viewDistance;
+    }
+
+    /**
+     * Queues the particle to be sent to every player near the location, changes made to the maker
+     * after this do not affect what is sent
+     */
+    public void queue(ParticleMaker maker, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        long chunk = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        queued.computeIfAbsent(world, w -> new HashMap<>())
+                .computeIfAbsent(chunk, c -> new ArrayList<>())
+                .add(new Emission(maker, location));
+        queuedCount++;
+
+        if (!flushScheduled && (plugin != null)) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+
+    /**
+     * Sends everything that has been queued
+     */
+    public void flush() {
+        flushScheduled = false;
+        if (queuedCount == 0) return;
+
+        double viewDistanceSquared = viewDistance * viewDistance;
+        // Players further than this from the chunk center can not see anything in it
+        double chunkRange = viewDistance + CHUNK_RADIUS;
+        double chunkRangeSquared = chunkRange * chunkRange;
+
+        for (Map.Entry<World, Map<Long, List<Emission>>> worldEntry : queued.entrySet()) {
+            List<Player> players = worldEntry.getKey().getPlayers();
+            if (players.isEmpty()) continue;
+
+            // Looked up once per flush, not once per chunk/emission
+            Location[] locations = new Location[players.size()];
+            for (int i = 0; i < locations.length; i++) locations[i] = players.get(i).getLocation();
+
+            int[] viewers = new int[locations.length];
+            for (Map.Entry<Long, List<Emission>> chunkEntry : worldEntry.getValue().entrySet()) {
+                long chunk = chunkEntry.getKey();
+                double centerX = (chunkX(chunk) << 4) + 8;
+                double centerZ = (chunkZ(chunk) << 4) + 8;
+
+                int viewerCount = 0;
+                for (int i = 0; i < locations.length; i++) {
+                    double x = locations[i].getX() - centerX;
+                    double z = locations[i].getZ() - centerZ;
+                    if (((x * x) + (z * z)) <= chunkRangeSquared) viewers[viewerCount++] = i;
+                }
+                if (viewerCount == 0) continue;
+
+                for (Emission emission : chunkEntry.getValue()) {
+                    for (int v = 0; v < viewerCount; v++) {
+                        int i = viewers[v];
+                        if (locations[i].distanceSquared(emission.location) > viewDistanceSquared) continue;
+                        emission.spawn(players.get(i));
+                        spawnCount++;
+                    }
+                }
+            }
+        }
+
+        emissionCount += queuedCount;
+        queued.clear();
+        queuedCount = 0;
+    }
+
+    /**
+     * The amount of emissions waiting for the next flush
+     */
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * The amount of emissions that have been flushed
+     */
+    public long getEmissionCount() {
+        return emissionCount;
+    }
+
+    /**
+     * The amount of times a particle was sent to a player
+     */
+    public long getSpawnCount() {
+        return spawnCount;
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    private static int chunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int chunkZ(long key) {
+        return (int) key;
+    }
+
+    /**
+     * What the maker would have sent at the time it was queued
+     */
+    private static final class Emission {
+        private final Location location;
+        private final org.bukkit.Particle particle;
+        private final Object data;
+        private final int count, amount;
+        private final double offsetX, offsetY, offsetZ, speed;
+
+        private Emission(ParticleMaker maker, Location location) {
+            this.location = location.clone();
+            particle = maker.getBukkitParticle();
+            // Read before the offsets, on older versions it sets them to the dust color
+            data = maker.getParticleData();
+            count = maker.getCount();
+            amount = maker.getSendAmount();
+            offsetX = maker.getOffsetX();
+            offsetY = maker.getOffsetY();
+            offsetZ = maker.getOffsetZ();
+            speed = maker.getSpeed();
+        }
+
+        private void spawn(Player player) {
+            for (int i = 0; i < amount; i++) {
+                player.spawnParticle(particle, location.getX(), location.getY(), location.getZ(), count, offsetX, offsetY, offsetZ, speed, data);
+            }
+        }
+    }
+}
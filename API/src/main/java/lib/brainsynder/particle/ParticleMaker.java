@@ -26,6 +26,8 @@ public class ParticleMaker {
     private Object data = null;
     private boolean colored = false;
     private int repeatAmount = 1;
+    // The Bukkit particle for the current type, looked up once instead of every spawn
+    private org.bukkit.Particle bukkitParticle = null;
 
     public ParticleMaker(Particle type, int count, double radius) {
         this(type, 0.0, count, radius);
@@ -125,6 +127,7 @@ public class ParticleMaker {
 
     public ParticleMaker setType(Particle type) {
         this.type = type;
+        this.bukkitParticle = null;
         return this;
     }
 
@@ -203,11 +206,22 @@ public class ParticleMaker {
     }
 
     public void sendToLocation(Location location) {
-        location.getWorld().getNearbyEntities(location, 100, 100, 100).forEach(entity -> {
-            if (entity instanceof Player) {
-                sendToPlayer((Player) entity, location);
+        org.bukkit.Particle particle = null;
+        Object data = null;
+
+        // Only the worlds players can see it, checking every entity in range is not needed
+        for (Player player : location.getWorld().getPlayers()) {
+            Location playerLocation = player.getLocation();
+            if ((Math.abs(playerLocation.getX() - location.getX()) > 100)
+                    || (Math.abs(playerLocation.getY() - location.getY()) > 100)
+                    || (Math.abs(playerLocation.getZ() - location.getZ()) > 100)) continue;
+
+            if (particle == null) {
+                particle = getBukkitParticle();
+                data = getParticleData();
             }
-        });
+            spawn(player, location, particle, data);
+        }
     }
 
     public void sendToPlayer(Player player) {
@@ -215,6 +229,18 @@ public class ParticleMaker {
     }
 
     public void sendToPlayer(Player player, Location location) {
+        spawn(player, location, getBukkitParticle(), getParticleData());
+    }
+
+    org.bukkit.Particle getBukkitParticle() {
+        if (bukkitParticle == null) bukkitParticle = org.bukkit.Particle.valueOf(type.name());
+        return bukkitParticle;
+    }
+
+    /**
+     * Gets the data the particle is spawned with (block/item/dust), or null if it has none
+     */
+    Object getParticleData() {
         Object data = null;
         if ((type == Particle.ITEM_CRACK)
                 || (type == Particle.BLOCK_CRACK)
@@ -239,18 +265,29 @@ public class ParticleMaker {
             }
         }
 
-        if (colored) {
-            for (int i = 0; i < repeatAmount; i++) {
-                player.spawnParticle(org.bukkit.Particle.valueOf(type.name()), location.getX(), location.getY(), location.getZ(), count, offsetX, offsetY, offsetY, speed, data);
-            }
-            return;
+        return data;
+    }
+
+    /**
+     * How many times the particle is sent per spawn (colored particles use the offsets as the color, so each one has to be sent on its own)
+     */
+    int getSendAmount() {
+        return colored ? repeatAmount : 1;
+    }
+
+    void spawn(Player player, Location location, org.bukkit.Particle particle, Object data) {
+        int amount = getSendAmount();
+        for (int i = 0; i < amount; i++) {
+            player.spawnParticle(particle, location.getX(), location.getY(), location.getZ(), count, offsetX, offsetY, offsetZ, speed, data);
         }
-        player.spawnParticle(org.bukkit.Particle.valueOf(type.name()), location.getX(), location.getY(), location.getZ(), count, offsetX, offsetY, offsetY, speed, data);
     }
 
     public void sendToPlayers(List<Player> players, Location location) {
+        if (players.isEmpty()) return;
+        org.bukkit.Particle particle = getBukkitParticle();
+        Object data = getParticleData();
         for (Player player : players) {
-            sendToPlayer(player, location);
+            spawn(player, location, particle, data);
         }
     }
 
@@ -7,30 +7,61 @@ import org.bukkit.entity.Player;
 
 import java.lang.reflect.*;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Reflection {
-    private static final HashMap<Class<? extends Entity>, Method> handles = new HashMap<>();
-
-
+    private static final Map<Class<?>, ReflectionCache.Invoker> handles = new ConcurrentHashMap<>();
+    // The PlayerConnection field for each player handle class
+    private static final Map<Class<?>, ReflectionCache.Accessor> connections = new ConcurrentHashMap<>();
+    private static volatile ReflectionCache.Invoker sendPacketMethod = null;
+    private static volatile String version = null;
 
     public static void sendPacket(Player player, Object packet)
             throws IllegalArgumentException {
         if (packet == null) return;
         Object handle = getHandle(player);
         if (handle == null) return;
-        Object connection = getNMSFields(handle, "server.level", "playerConnection", "b");
-        Method sendPacket = getMethod(getNmsClass("PlayerConnection", "server.network"), new String[]{"sendPacket", "a"}, getNmsClass("Packet", "network.protocol"));
-        if (connection == null) return;
+        ReflectionCache.Accessor connectionField = connections.computeIfAbsent(handle.getClass(), Reflection::findConnectionField);
+        ReflectionCache.Invoker sendPacket = getSendPacketMethod();
+        if (connectionField == null) return;
         if (sendPacket == null) return;
         try {
+            Object connection = connectionField.get(handle);
+            if (connection == null) return;
             sendPacket.invoke(connection, packet);
-        } catch (IllegalAccessException | InvocationTargetException ex) {
+        } catch (InvocationTargetException ex) {
             ex.printStackTrace();
         }
     }
 
+    private static ReflectionCache.Accessor findConnectionField(Class<?> handleClass) {
+        Class<?> clazz = getNmsClass(handleClass.getSimpleName(), "server.level");
+        if (clazz == null) return null;
+        for (String name : new String[]{"playerConnection", "b"}) {
+            try {
+                return ReflectionCache.getField(clazz, name);
+            } catch (NoSuchFieldException ignored) {}
+        }
+        return null;
+    }
+
+    private static ReflectionCache.Invoker getSendPacketMethod() {
+        ReflectionCache.Invoker invoker = sendPacketMethod;
+        if (invoker == null) {
+            Method method = getMethod(getNmsClass("PlayerConnection", "server.network"), new String[]{"sendPacket", "a"}, getNmsClass("Packet", "network.protocol"));
+            if (method == null) return null;
+            try {
+                sendPacketMethod = invoker = ReflectionCache.Invoker.of(method);
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        return invoker;
+    }
+
     public static <T> T invokeNMSStaticMethod(String className, String method, Class<?>[] parameterClasses, Object... params) {
         return invokeNMSMethod(className, method, null, parameterClasses, params);
     }
@@ -61,15 +92,13 @@ public class Reflection {
 
     @Deprecated
     public static <T> T invokeNMSMethod(String className, String method, Object invoker, Class<?>[] parameterClasses, Object... params) {
-        return invokeNMSMethod(className, "", method, invoker, parameterClasses);
+        return invokeNMSMethod(className, "", method, invoker, parameterClasses, params);
     }
 
     public static <T> T invokeNMSMethod(String className, String subLoc, String method, Object invoker, Class<?>[] parameterClasses, Object... params) {
         try {
             Class e = getNmsClass(className, subLoc);
-            Method m = e.getDeclaredMethod(method, parameterClasses);
-            m.setAccessible(true);
-            return (T) m.invoke(invoker, params);
+            return (T) ReflectionCache.getMethod(e, method, parameterClasses).invoke(invoker, params);
         } catch (Exception var7) {
             var7.printStackTrace();
             return null;
@@ -98,9 +127,7 @@ public class Reflection {
     public static Object newNMS(String className, String subLoc, Class<?>[] parameterClasses, Object... params) {
         try {
             Class ex = getNmsClass(className, subLoc);
-            Constructor constructor = ex.getDeclaredConstructor(parameterClasses);
-            constructor.setAccessible(true);
-            return constructor.newInstance(params);
+            return ReflectionCache.getConstructor(ex, parameterClasses).newInstance(params);
         } catch (Exception var5) {
             var5.printStackTrace();
             return null;
@@ -128,9 +155,7 @@ public class Reflection {
 
     public static <T> T getNMSField(String className, String subLoc, Object owner, String fieldName) throws NoSuchFieldException, IllegalAccessException {
         Class ex = getNmsClass(className, subLoc);
-        Field field = ex.getDeclaredField(fieldName);
-        field.setAccessible(true);
-        return (T) field.get(owner);
+        return (T) ReflectionCache.getField(ex, fieldName).get(owner);
     }
 
     public static <T> T getNMSStaticField(String className, String fieldName) throws NoSuchFieldException, IllegalAccessException {
@@ -145,9 +170,7 @@ public class Reflection {
 
         try {
             Class e = getCBCClass(className);
-            Method m = e.getDeclaredMethod(method, parameterClasses);
-            m.setAccessible(true);
-            return (T) m.invoke(invoker, params);
+            return (T) ReflectionCache.getMethod(e, method, parameterClasses).invoke(invoker, params);
         } catch (Exception var7) {
             var7.printStackTrace();
             return null;
@@ -185,9 +208,7 @@ public class Reflection {
     public static <T> T getBukkitField(String className, Object owner, String fieldName) {
         try {
             Class ex = getCBCClass(className);
-            Field field = ex.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return (T) field.get(owner);
+            return (T) ReflectionCache.getField(ex, fieldName).get(owner);
         } catch (Exception var5) {
             var5.printStackTrace();
             return null;
@@ -204,11 +225,11 @@ public class Reflection {
 
     public static Object getHandle(Entity entity) {
         try {
-            if (handles.get(entity.getClass()) != null) {
-                return handles.get(entity.getClass()).invoke(entity);
+            ReflectionCache.Invoker entity_getHandle = handles.get(entity.getClass());
+            if (entity_getHandle == null) {
+                entity_getHandle = ReflectionCache.Invoker.of(entity.getClass().getMethod("getHandle"));
+                handles.put(entity.getClass(), entity_getHandle);
             }
-            Method entity_getHandle = entity.getClass().getMethod("getHandle");
-            handles.put(entity.getClass(), entity_getHandle);
             return entity_getHandle.invoke(entity);
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -236,31 +257,28 @@ public class Reflection {
     }
 
     public static Class<?> getNmsClass(String name) {
-        Class<?> clazz = null;
-        try {
-            clazz = Class.forName("net.minecraft.server." + getVersion() + "." + name);
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        }
+        String className = "net.minecraft.server." + getVersion() + "." + name;
+        Class<?> clazz = ReflectionCache.findClass(className);
+        if (clazz == null) new ClassNotFoundException(className).printStackTrace();
         return clazz;
     }
 
     public static Class<?> getNmsClass(String name, String subLoc) {
         Class<?> clazz;
-        try {
-            if (subLoc == null || subLoc.length() == 0) {
-                clazz = Class.forName("net.minecraft." + name);
-            } else {
-                clazz = Class.forName("net.minecraft." + subLoc + "." + name);
-            }
-        } catch (ClassNotFoundException ex) {
-            clazz = getNmsClass(name);
+        if (subLoc == null || subLoc.length() == 0) {
+            clazz = ReflectionCache.findClass("net.minecraft." + name);
+        } else {
+            clazz = ReflectionCache.findClass("net.minecraft." + subLoc + "." + name);
         }
+        if (clazz == null) clazz = getNmsClass(name);
         return clazz;
     }
 
     private static String getVersion() {
-        return Bukkit.getServer().getClass().getPackage().getName().substring(23);
+        // The server class never changes while running
+        String version = Reflection.version;
+        if (version == null) Reflection.version = version = Bukkit.getServer().getClass().getPackage().getName().substring(23);
+        return version;
     }
 
     public static Object getFieldValue(Field field, Object instance) {
@@ -353,12 +371,10 @@ public class Reflection {
 
 
     public static Class getCBCClass(String className) {
-        try {
-            return Class.forName("org.bukkit.craftbukkit." + getVersion() + "." + className);
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        }
-        return null;
+        String name = "org.bukkit.craftbukkit." + getVersion() + "." + className;
+        Class<?> clazz = ReflectionCache.findClass(name);
+        if (clazz == null) new ClassNotFoundException(name).printStackTrace();
+        return clazz;
     }
 
     // This is mostly useful in Reflection of multiple version
@@ -0,0 +1,248 @@
+package lib.brainsynder.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches reflection lookups by (class, name, parameter types).
+ *
+ * <p>Each method, constructor and field is looked up and made accessible once, then turned
+ * into a {@link MethodHandle} that takes/returns plain Objects. Lookups that failed are
+ * remembered as well, so asking again throws straight away instead of searching the class again.</p>
+ */
+public final class ReflectionCache {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Object MISSING = new Object();
+
+    private static final Map<String, Object> CLASSES = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Object> METHODS = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Object> CONSTRUCTORS = new ConcurrentHashMap<>();
+    private static final Map<MemberKey, Object> FIELDS = new ConcurrentHashMap<>();
+
+    private ReflectionCache() {}
+
+    /**
+     * Finds the class with the full name
+     *
+     * @return null if the class does not exist
+     */
+    public static Class<?> findClass(String name) {
+        Object clazz = CLASSES.computeIfAbsent(name, key -> {
+            try {
+                return Class.forName(key);
+            } catch (ClassNotFoundException | LinkageError e) {
+                return MISSING;
+            }
+        });
+        return (clazz == MISSING) ? null : (Class<?>) clazz;
+    }
+
+    /**
+     * Gets the method declared in the class (See {@link Class#getDeclaredMethod(String, Class[])})
+     */
+    public static Invoker getMethod(Class<?> clazz, String name, Class<?>... params) throws NoSuchMethodException {
+        Object invoker = METHODS.computeIfAbsent(new MemberKey(clazz, name, params), key -> {
+            try {
+                return Invoker.of(clazz.getDeclaredMethod(name, params));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return MISSING;
+            }
+        });
+        if (invoker == MISSING) throw new NoSuchMethodException(clazz.getName() + "." + name + Arrays.toString(params));
+        return (Invoker) invoker;
+    }
+
+    /**
+     * Gets the constructor declared in the class (See {@link Class#getDeclaredConstructor(Class[])})
+     */
+    public static Invoker getConstructor(Class<?> clazz, Class<?>... params) throws NoSuchMethodException {
+        Object invoker = CONSTRUCTORS.computeIfAbsent(new MemberKey(clazz, "<init>", params), key -> {
+            try {
+                return Invoker.of(clazz.getDeclaredConstructor(params));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return MISSING;
+            }
+        });
+        if (invoker == MISSING) throw new NoSuchMethodException(clazz.getName() + ".<init>" + Arrays.toString(params));
+        return (Invoker) invoker;
+    }
+
+    /**
+     * Gets the field declared in the class (See {@link Class#getDeclaredField(String)})
+     */
+    public static Accessor getField(Class<?> clazz, String name) throws NoSuchFieldException {
+        Object accessor = FIELDS.computeIfAbsent(new MemberKey(clazz, name, null), key -> {
+            try {
+                return Accessor.of(clazz.getDeclaredField(name));
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                return MISSING;
+            }
+        });
+        if (accessor == MISSING) throw new NoSuchFieldException(clazz.getName() + "." + name);
+        return (Accessor) accessor;
+    }
+
+    /**
+     * A method or constructor that can be called with plain Objects.
+     * Static methods and constructors ignore the instance.
+     */
+    public static final class Invoker {
+        private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class, Object[].class);
+        private static final MethodHandle WRAP_THROWN;
+
+        static {
+            try {
+                WRAP_THROWN = LOOKUP.findStatic(Invoker.class, "wrapThrown", MethodType.methodType(Object.class, Throwable.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final MethodHandle handle;
+        private final boolean needsInstance;
+
+        private Invoker(MethodHandle handle, int parameterCount, boolean needsInstance) {
+            // Only what the method itself throws is marked, the argument conversion around it is not
+            MethodHandle wrapper = WRAP_THROWN.asType(MethodType.methodType(handle.type().returnType(), Throwable.class));
+            handle = MethodHandles.catchException(handle, Throwable.class, wrapper);
+            this.handle = handle.asSpreader(Object[].class, parameterCount).asType(GENERIC);
+            this.needsInstance = needsInstance;
+        }
+
+        public static Invoker of(Method method) throws IllegalAccessException {
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            if (isStatic) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            return new Invoker(handle, method.getParameterCount(), !isStatic);
+        }
+
+        public static Invoker of(Constructor<?> constructor) throws IllegalAccessException {
+            constructor.setAccessible(true);
+            MethodHandle handle = MethodHandles.dropArguments(LOOKUP.unreflectConstructor(constructor), 0, Object.class);
+            return new Invoker(handle, constructor.getParameterCount(), false);
+        }
+
+        /**
+         * Calls the method. Like {@link Method#invoke(Object, Object...)}, anything the method throws is
+         * wrapped in an {@link InvocationTargetException}, and a null instance or arguments of the
+         * wrong count/type throw an {@link IllegalArgumentException}.
+         */
+        public Object invoke(Object instance, Object... args) throws InvocationTargetException {
+            if (needsInstance && (instance == null)) throw new IllegalArgumentException("The instance is null, but the method is not static");
+            try {
+                return (Object) handle.invokeExact(instance, args);
+            } catch (Thrown thrown) {
+                throw new InvocationTargetException(thrown.getCause());
+            } catch (ClassCastException | WrongMethodTypeException | NullPointerException e) {
+                // Thrown while converting the instance/arguments, the method was never called
+                throw new IllegalArgumentException(e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new InvocationTargetException(throwable);
+            }
+        }
+
+        private static Object wrapThrown(Throwable throwable) {
+            throw new Thrown(throwable);
+        }
+
+        public Object newInstance(Object... args) throws InvocationTargetException {
+            return invoke(null, args);
+        }
+    }
+
+    /**
+     * Marks what the method itself threw, so it can be told apart from a bad call
+     */
+    private static final class Thrown extends RuntimeException {
+        private Thrown(Throwable cause) {
+            super(null, cause, false, false);
+        }
+    }
+
+    /**
+     * Reads and writes a field with plain Objects. Static fields ignore the instance.
+     */
+    public static final class Accessor {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Accessor(MethodHandle getter, MethodHandle setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public static Accessor of(Field field) throws IllegalAccessException {
+            field.setAccessible(true);
+            MethodHandle getter = LOOKUP.unreflectGetter(field);
+            MethodHandle setter = null;
+            // Final fields can not be set through a handle
+            if (!Modifier.isFinal(field.getModifiers())) setter = LOOKUP.unreflectSetter(field);
+
+            if (Modifier.isStatic(field.getModifiers())) {
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                if (setter != null) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+            getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+            if (setter != null) setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return new Accessor(getter, setter);
+        }
+
+        public Object get(Object instance) {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        }
+
+        public void set(Object instance, Object value) {
+            if (setter == null) throw new UnsupportedOperationException("Field is final");
+            try {
+                setter.invokeExact(instance, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        }
+    }
+
+    private static final class MemberKey {
+        private static final Class<?>[] NO_PARAMS = new Class[0];
+        private final Class<?> owner;
+        private final String name;
+        private final Class<?>[] params;
+        private final int hash;
+
+        private MemberKey(Class<?> owner, String name, Class<?>[] params) {
+            this.owner = owner;
+            this.name = name;
+            this.params = (params == null) ? NO_PARAMS : params;
+            this.hash = (31 * (31 * owner.hashCode() + name.hashCode())) + Arrays.hashCode(this.params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MemberKey)) return false;
+            MemberKey key = (MemberKey) o;
+            return (owner == key.owner) && name.equals(key.name) && Arrays.equals(params, key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -10,6 +10,9 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * This class translates sounds to and from 1.8 and 1.9 spigot versions depending on what the server is running.
@@ -1657,6 +1660,8 @@ public enum SoundMaker {
 
     private String soundname = name();
     private String v1_8_SoundName = "";
+    // Support flag and Bukkit sound, looked up the first time the sound is played
+    private volatile Resolved resolved = null;
 
     interface Return<T> {
         T fetch(T name);
@@ -1679,16 +1684,13 @@ public enum SoundMaker {
     }
 
     public static SoundMaker fromString(String soundName) {
-        for (SoundMaker maker : SoundMaker.values()) {
-            if (maker.v1_8_SoundName.equals(soundName)) {
-                return maker;
-            } else if (maker.soundname.equalsIgnoreCase(soundName)) {
-                return maker;
-            } else if (maker.name().equalsIgnoreCase(soundName)) {
-                return maker;
-            }
-        }
-        return SoundMaker.UI_BUTTON_CLICK;
+        if (soundName == null) return SoundMaker.UI_BUTTON_CLICK;
+        // Both maps keep the first constant for each name, the earliest of the two matches wins (same as scanning in order)
+        SoundMaker legacy = Index.LEGACY.get(soundName);
+        SoundMaker modern = Index.NAMES.get(soundName.toUpperCase(Locale.ENGLISH));
+        if (legacy == null) return (modern == null) ? SoundMaker.UI_BUTTON_CLICK : modern;
+        if (modern == null) return legacy;
+        return (legacy.ordinal() < modern.ordinal()) ? legacy : modern;
     }
 
     public String getSound() {
@@ -1712,25 +1714,30 @@ public enum SoundMaker {
     }
 
     private void playSound(World world, Location location, float v, float v1) {
-        if (!isSupported()) return;
-        String name = getSound();
-        if (name == null) return;
+        Sound sound = getBukkitSound();
+        if (sound == null) return;
         try {
-            Sound sound = Sound.valueOf(name);
             world.playSound(location, sound, v, v1);
         } catch (Exception ignored) {}
     }
 
     private void playSound(Player player, Location loc, float v, float v1) {
-        if (!isSupported()) return;
-        String name = getSound();
-        if (name == null) return;
+        Sound sound = getBukkitSound();
+        if (sound == null) return;
         try {
-            Sound sound = Sound.valueOf(name);
             player.playSound(loc, sound, v, v1);
         } catch (Exception ignored) {}
     }
 
+    /**
+     * Gets the Bukkit sound this plays on the current server version
+     *
+     * @return null if the sound is not supported on this version
+     */
+    public Sound getBukkitSound() {
+        return resolve().sound;
+    }
+
     public void playSound(Player player) {
         playSound(player, player.getLocation(), 1, 1);
     }
@@ -1752,6 +1759,16 @@ public enum SoundMaker {
     }
 
     public boolean isSupported () {
+        return resolve().supported;
+    }
+
+    private Resolved resolve() {
+        Resolved resolved = this.resolved;
+        if (resolved == null) this.resolved = resolved = new Resolved(this);
+        return resolved;
+    }
+
+    private boolean checkSupported() {
         try {
             Annotation[] annotations = getClass().getField(name()).getAnnotations();
             for (Annotation annotation : annotations) {
@@ -1767,4 +1784,38 @@ public enum SoundMaker {
         }
         return true;
     }
+
+    private static final class Resolved {
+        private final boolean supported;
+        private final Sound sound;
+
+        private Resolved(SoundMaker maker) {
+            this.supported = maker.checkSupported();
+
+            Sound sound = null;
+            if (supported) {
+                String name = maker.getSound();
+                if (name != null) {
+                    try {
+                        sound = Sound.valueOf(name);
+                    } catch (Exception ignored) {}
+                }
+            }
+            this.sound = sound;
+        }
+    }
+
+    // Built the first time fromString is used (enum constants can not read static fields in their constructor)
+    private static final class Index {
+        private static final Map<String, SoundMaker> LEGACY = new HashMap<>();
+        private static final Map<String, SoundMaker> NAMES = new HashMap<>();
+
+        static {
+            for (SoundMaker maker : SoundMaker.values()) {
+                LEGACY.putIfAbsent(maker.v1_8_SoundName, maker);
+                NAMES.putIfAbsent(maker.soundname.toUpperCase(Locale.ENGLISH), maker);
+                NAMES.putIfAbsent(maker.name(), maker);
+            }
+        }
+    }
 }
@@ -0,0 +1,698 @@
+package lib.brainsynder.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A thread safe cache with a maximum size (or weight) and an optional time to live.
+ *
+ * <p>Reads never lock. Entries are stored in a {@link ConcurrentHashMap}, and reads are recorded
+ * in a small buffer that is applied to the eviction policy in batches. Writes update the policy
+ * under a lock, so they are slower than reads.</p>
+ *
+ * <p>When the cache is full it uses W-TinyLFU to pick what to evict. New entries start in a
+ * small LRU window. When they leave the window, they only replace the least valuable entry in the
+ * main cache if they have been used more often recently (tracked with a {@link FrequencySketch}).
+ * This keeps popular entries from being pushed out by a burst of one-off keys.</p>
+ *
+ * <pre>
+ * ConcurrentCache&lt;UUID, Profile&gt; cache = new ConcurrentCache&lt;&gt;(10_000, 30, TimeUnit.MINUTES);
+ * Profile profile = cache.computeIfAbsent(uuid, this::loadProfile);
+ * </pre>
+ */
+public class ConcurrentCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    // How many reads are recorded before the buffer is applied
+    private static final int READ_DRAIN_THRESHOLD = 32;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final Weigher<K, V> weigher;
+    private final Ticker ticker;
+    private final long expireNanos;
+
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCount = new AtomicLong();
+
+    // Everything below here is only used while holding the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+    private final WriteQueue<K, V> writeOrder = new WriteQueue<>();
+    private long weightedSize = 0;
+    private long windowWeight = 0;
+    private long protectedWeight = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile RemovalListener<K, V> removalListener = null;
+
+    /**
+     * @param maximumSize The most entries the cache will hold
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maximumSize      The most entries the cache will hold
+     * @param expireAfterWrite How long an entry is kept after it was put (0 to keep it until it is evicted)
+     */
+    public ConcurrentCache(long maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this(maximumSize, (key, value) -> 1, expireAfterWrite, unit, Ticker.systemTicker());
+    }
+
+    /**
+     * @param maximumWeight    The most weight the cache will hold
+     * @param weigher          Works out the weight of an entry (EG: the size in bytes), it can not change while cached
+     * @param expireAfterWrite How long an entry is kept after it was put (0 to keep it until it is evicted)
+     * @param ticker           The time source (a fake one can be used to control time)
+     */
+    public ConcurrentCache(long maximumWeight, Weigher<K, V> weigher, long expireAfterWrite, TimeUnit unit, Ticker ticker) {
+        this(maximumWeight, weigher, maximumWeight, expireAfterWrite, unit, ticker);
+    }
+
+    /**
+     * @param maximumWeight    The most weight the cache will hold
+     * @param weigher          Works out the weight of an entry (EG: the size in bytes), it can not change while cached
+     * @param expectedEntries  About how many entries fit in the maximum weight, the frequency sketch is sized for this many
+     * @param expireAfterWrite How long an entry is kept after it was put (0 to keep it until it is evicted)
+     * @param ticker           The time source (a fake one can be used to control time)
+     */
+    public ConcurrentCache(long maximumWeight, Weigher<K, V> weigher, long expectedEntries, long expireAfterWrite, TimeUnit unit, Ticker ticker) {
+        Preconditions.checkArgument(maximumWeight >= 0, "maximumWeight cannot be negative");
+        Preconditions.checkArgument(expectedEntries >= 0, "expectedEntries cannot be negative");
+        Preconditions.checkNotNull(weigher, "weigher cannot be NULL");
+        Preconditions.checkNotNull(ticker, "ticker cannot be NULL");
+        this.maximum = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+        this.weigher = weigher;
+        this.ticker = ticker;
+        this.expireNanos = unit.toNanos(Math.max(expireAfterWrite, 0));
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    /**
+     * Sets what is called whenever an entry is removed. It is called after the cache has
+     * been updated, on the thread that caused the removal.
+     */
+    public void setRemovalListener(RemovalListener<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Gets the cached value, or null if there is none (or it has expired)
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (hasExpired(node, ticker.read())) {
+            misses.increment();
+            removeExpired(node);
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Gets the cached value, or loads it if there is none.
+     * If the key is already being loaded by another thread this waits for that load instead of loading it again.
+     *
+     * @param loader Loads the value, if it returns null nothing is cached
+     * @throws IllegalStateException If the loader tries to load the same key (it would wait for itself forever)
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) return value;
+
+        CompletableFuture<V> future = new Load<>(Thread.currentThread());
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            if ((existing instanceof Load) && (((Load<V>) existing).owner == Thread.currentThread())) {
+                throw new IllegalStateException("Recursive load of " + key);
+            }
+            return join(existing);
+        }
+
+        try {
+            // Another thread could have finished loading it just before this one started
+            value = peek(key);
+            if (value == null) {
+                value = loader.apply(key);
+                loadSuccesses.increment();
+                if (value != null) put(key, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Gets the cached value, or starts loading it if there is none.
+     * If the key is already being loaded, the same future is returned to every caller.
+     *
+     * @param loader Starts loading the value, if it completes with null nothing is cached
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<V>> loader) {
+        V value = getIfPresent(key);
+        if (value != null) return CompletableFuture.completedFuture(value);
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        value = peek(key);
+        if (value != null) {
+            loading.remove(key, future);
+            future.complete(value);
+            return future;
+        }
+
+        CompletableFuture<V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            load = new CompletableFuture<>();
+            load.completeExceptionally(e);
+        }
+        load.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                loadFailures.increment();
+            } else {
+                loadSuccesses.increment();
+                if (result != null) put(key, result);
+            }
+            loading.remove(key, future);
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Caches the value, replacing any value already cached for the key
+     *
+     * @return The value that was replaced, or null
+     */
+    public V put(K key, V value) {
+        Preconditions.checkNotNull(key, "key cannot be NULL");
+        Preconditions.checkNotNull(value, "value cannot be NULL");
+        long now = ticker.read();
+        Node<K, V> node = new Node<>(key, value, weigher.weigh(key, value), now);
+        Node<K, V> previous = data.put(key, node);
+        if (previous != null) previous.retired = true;
+
+        List<Removal<K, V>> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            if (previous != null) {
+                unlink(previous);
+                removals.add(new Removal<>(previous, hasExpired(previous, now) ? RemovalCause.EXPIRED : RemovalCause.REPLACED));
+            }
+            link(node);
+            maintenance(now, removals);
+        } finally {
+            lock.unlock();
+        }
+        notify(removals);
+        return ((previous == null) || hasExpired(previous, now)) ? null : previous.value;
+    }
+
+    /**
+     * Removes the key from the cache
+     *
+     * @return The value that was removed, or null
+     */
+    public V remove(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node == null) return null;
+        node.retired = true;
+
+        boolean expired = hasExpired(node, ticker.read());
+        lock.lock();
+        try {
+            unlink(node);
+        } finally {
+            lock.unlock();
+        }
+        notify(new Removal<>(node, expired ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT));
+        return expired ? null : node.value;
+    }
+
+    /**
+     * Removes everything from the cache
+     */
+    public void invalidateAll() {
+        for (K key : data.keySet()) remove(key);
+    }
+
+    /**
+     * Applies any buffered reads and removes expired entries. This happens by itself as the
+     * cache is used, but can be called to clean up a cache that is not being used.
+     */
+    public void cleanUp() {
+        List<Removal<K, V>> removals = new ArrayList<>();
+        lock.lock();
+        try {
+            maintenance(ticker.read(), removals);
+        } finally {
+            lock.unlock();
+        }
+        notify(removals);
+    }
+
+    /**
+     * Runs the consumer for every entry that has not expired
+     */
+    public void forEach(BiConsumer<? super K, ? super V> consumer) {
+        long now = ticker.read();
+        for (Map.Entry<K, Node<K, V>> entry : data.entrySet()) {
+            if (!hasExpired(entry.getValue(), now)) consumer.accept(entry.getKey(), entry.getValue().value);
+        }
+    }
+
+    /**
+     * The amount of entries in the cache, this can include entries that have expired but not been cleaned up yet
+     */
+    public long size() {
+        return data.size();
+    }
+
+    /**
+     * The total weight of the entries in the cache
+     */
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaximumWeight() {
+        return maximum;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The fraction of reads that found a value (1.0 if there have been no reads)
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return (total == 0) ? 1.0 : (double) hit / total;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccesses.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    /**
+     * The amount of entries removed to stay under the maximum weight
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public String toString() {
+        return "ConcurrentCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /**
+     * Gets the value without recording a hit/miss
+     */
+    private V peek(K key) {
+        Node<K, V> node = data.get(key);
+        if ((node == null) || hasExpired(node, ticker.read())) return null;
+        return node.value;
+    }
+
+    private boolean hasExpired(Node<K, V> node, long now) {
+        return (expireNanos > 0) && ((now - node.writeTime) >= expireNanos);
+    }
+
+    private void removeExpired(Node<K, V> node) {
+        if (!data.remove(node.key, node)) return;
+        node.retired = true;
+        lock.lock();
+        try {
+            unlink(node);
+        } finally {
+            lock.unlock();
+        }
+        notify(new Removal<>(node, RemovalCause.EXPIRED));
+    }
+
+    /**
+     * Records the read in the buffer, the buffer is lossy (a read can be overwritten before it is applied)
+     * which only makes the eviction policy slightly less accurate
+     */
+    private void recordRead(Node<K, V> node) {
+        long count = readCount.getAndIncrement();
+        readBuffer.lazySet((int) (count & READ_BUFFER_MASK), node);
+        if (((count + 1) % READ_DRAIN_THRESHOLD) != 0) return;
+
+        // Skipped if another thread is already working on the cache, it will be applied next time
+        if (!lock.tryLock()) return;
+        List<Removal<K, V>> removals = new ArrayList<>();
+        try {
+            maintenance(ticker.read(), removals);
+        } finally {
+            lock.unlock();
+        }
+        notify(removals);
+    }
+
+    private void notify(List<Removal<K, V>> removals) {
+        for (Removal<K, V> removal : removals) notify(removal);
+    }
+
+    private void notify(Removal<K, V> removal) {
+        RemovalListener<K, V> listener = removalListener;
+        if (listener == null) return;
+        try {
+            listener.onRemoval(removal.node.key, removal.node.value, removal.cause);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+        }
+    }
+
+    // ---- Everything below is only called while holding the lock ---- //
+
+    private void maintenance(long now, List<Removal<K, V>> removals) {
+        drainReads();
+        expire(now, removals);
+        evict(removals);
+    }
+
+    private void drainReads() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node<K, V> node = readBuffer.getAndSet(i, null);
+            if (node != null) onAccess(node);
+        }
+    }
+
+    private void expire(long now, List<Removal<K, V>> removals) {
+        if (expireNanos <= 0) return;
+        Node<K, V> node;
+        // Entries are in the order they were written, so the first that has not expired ends it
+        while (((node = writeOrder.head) != null) && hasExpired(node, now)) {
+            unlink(node);
+            if (data.remove(node.key, node)) {
+                node.retired = true;
+                removals.add(new Removal<>(node, RemovalCause.EXPIRED));
+            }
+        }
+    }
+
+    private void link(Node<K, V> node) {
+        // Replaced/removed before the lock was taken
+        if (node.retired || node.linked) return;
+        node.linked = true;
+        node.queue = Node.WINDOW;
+        window.addLast(node);
+        windowWeight += node.weight;
+        weightedSize += node.weight;
+        if (expireNanos > 0) writeOrder.addLast(node);
+        sketch.increment(node.key);
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (!node.linked) {
+            // If it has not been linked yet, make sure it never is
+            node.retired = true;
+            return;
+        }
+        node.linked = false;
+        weightedSize -= node.weight;
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+        }
+        if (expireNanos > 0) writeOrder.remove(node);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.linked) return;
+        sketch.increment(node.key);
+
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.moveToBack(node);
+                break;
+            case Node.PROBATION:
+                // Used again while on probation, so it moves into the protected part
+                probation.remove(node);
+                node.queue = Node.PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.weight;
+
+                while ((protectedWeight > protectedMaximum) && (protectedQueue.head != null)) {
+                    Node<K, V> demoted = protectedQueue.head;
+                    protectedQueue.remove(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = Node.PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void evict(List<Removal<K, V>> removals) {
+        // Entries leaving the window become candidates at the back of probation
+        int candidates = 0;
+        while ((windowWeight > windowMaximum) && (window.head != null)) {
+            Node<K, V> node = window.head;
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.queue = Node.PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+
+        while (weightedSize > maximum) {
+            Node<K, V> victim = probation.head;
+            if (victim == null) victim = protectedQueue.head;
+            if (victim == null) victim = window.head;
+            if (victim == null) break;
+
+            Node<K, V> candidate = (candidates > 0) ? probation.tail : null;
+            Node<K, V> evict = victim;
+            if ((candidate != null) && (candidate != victim)) {
+                // The candidate only gets in if it has been used more than the entry it would replace
+                if (sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) evict = candidate;
+            }
+            if (evict == candidate) candidates--;
+
+            unlink(evict);
+            if (data.remove(evict.key, evict)) {
+                evict.retired = true;
+                evictions.increment();
+                removals.add(new Removal<>(evict, RemovalCause.SIZE));
+            }
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    public enum RemovalCause {
+        /** The entry's time ran out */
+        EXPIRED,
+        /** The key was put again */
+        REPLACED,
+        /** The key was removed with {@link #remove(Object)} or {@link #invalidateAll()} */
+        EXPLICIT,
+        /** The entry was evicted to stay under the maximum weight */
+        SIZE
+    }
+
+    public interface RemovalListener<K, V> {
+        void onRemoval(K key, V value, RemovalCause cause);
+    }
+
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * A load from {@link #computeIfAbsent(Object, Function)}, knows its thread so a recursive load can be caught
+     */
+    private static final class Load<V> extends CompletableFuture<V> {
+        private final Thread owner;
+
+        private Load(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    private static final class Removal<K, V> {
+        private final Node<K, V> node;
+        private final RemovalCause cause;
+
+        private Removal(Node<K, V> node, RemovalCause cause) {
+            this.node = node;
+            this.cause = cause;
+        }
+    }
+
+    private static final class Node<K, V> {
+        private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+        private final K key;
+        private final V value;
+        private final int weight;
+        private final long writeTime;
+        // Set once the node is no longer in the map
+        private volatile boolean retired = false;
+
+        // Only used while holding the lock
+        private boolean linked = false;
+        private int queue = WINDOW;
+        private Node<K, V> previous, next;
+        private Node<K, V> writePrevious, writeNext;
+
+        private Node(K key, V value, int weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * A linked list through the nodes, in access order
+     */
+    private static final class AccessQueue<K, V> {
+        private Node<K, V> head, tail;
+
+        private void addLast(Node<K, V> node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        private void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = node.next = null;
+        }
+
+        private void moveToBack(Node<K, V> node) {
+            if (tail == node) return;
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    /**
+     * A linked list through the nodes, in write order
+     */
+    private static final class WriteQueue<K, V> {
+        private Node<K, V> head, tail;
+
+        private void addLast(Node<K, V> node) {
+            node.writePrevious = tail;
+            node.writeNext = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.writeNext = node;
+            }
+            tail = node;
+        }
+
+        private void remove(Node<K, V> node) {
+            if (node.writePrevious == null) {
+                head = node.writeNext;
+            } else {
+                node.writePrevious.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                tail = node.writePrevious;
+            } else {
+                node.writeNext.writePrevious = node.writePrevious;
+            }
+            node.writePrevious = node.writeNext = null;
+        }
+    }
+}
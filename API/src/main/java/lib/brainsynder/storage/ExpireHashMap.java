@@ -1,153 +1,336 @@
-package lib.brainsynder.storage;
-
-import com.google.common.base.Function;
-import com.google.common.base.Objects;
-import com.google.common.base.Preconditions;
-import com.google.common.base.Ticker;
-import com.google.common.collect.Maps;
-import com.google.common.primitives.Longs;
-
-import java.util.*;
-import java.util.Map.Entry;
-import java.util.concurrent.TimeUnit;
-
-public class ExpireHashMap<K, V> {
-    private final Map<K, ExpireEntry> keyLookup;
-    private final PriorityQueue<ExpireEntry> expireQueue;
-    private final Map<K, V> valueView;
-    private final Ticker ticker;
-
-    public ExpireHashMap() {
-        this(Ticker.systemTicker());
-    }
-
-    public ExpireHashMap(Ticker ticker) {
-        this.keyLookup = new HashMap();
-        this.expireQueue = new PriorityQueue();
-        this.valueView = Maps.transformValues(this.keyLookup, new Function<ExpireEntry, V>() {
-            public V apply(ExpireHashMap<K, V>.ExpireEntry entry) {
-                return entry.value;
-            }
-        });
-        this.ticker = ticker;
-    }
-
-    /**
-     *
-     * @param key The Key you are searching for
-     * @return
-     */
-    public V get(K key) {
-        this.evict();
-        ExpireHashMap.ExpireEntry entry = this.keyLookup.get(key);
-        return entry != null? (V) entry.value :null;
-    }
-
-    public V put(K key, V value, long expireDelay, TimeUnit expireUnit) {
-        Preconditions.checkNotNull(expireUnit, "expireUnit cannot be NULL");
-        Preconditions.checkState(expireDelay > 0L, "expireDelay cannot be equal or less than zero.");
-        this.evict();
-        ExpireHashMap.ExpireEntry entry = new ExpireHashMap.ExpireEntry(this.ticker.read() + TimeUnit.NANOSECONDS.convert(expireDelay, expireUnit), key, value);
-        ExpireHashMap.ExpireEntry previous = this.keyLookup.put(key, entry);
-        this.expireQueue.add(entry);
-        return previous != null?(V)previous.value :null;
-    }
-
-    public boolean containsKey(K key) {
-        this.evict();
-        return this.keyLookup.containsKey(key);
-    }
-
-    public boolean containsValue(V value) {
-        this.evict();
-        Iterator var2 = this.keyLookup.values().iterator();
-
-        ExpireHashMap.ExpireEntry entry;
-        do {
-            if(!var2.hasNext()) {
-                return false;
-            }
-
-            entry = (ExpireHashMap.ExpireEntry)var2.next();
-        } while(!Objects.equal(value, entry.value));
-
-        return true;
-    }
-
-    public V removeKey(K key) {
-        this.evict();
-        ExpireHashMap.ExpireEntry entry = this.keyLookup.remove(key);
-        return entry != null?(V)entry.value :null;
-    }
-
-    public int size() {
-        this.evict();
-        return this.keyLookup.size();
-    }
-
-    public Set<K> keySet() {
-        this.evict();
-        return this.keyLookup.keySet();
-    }
-
-    public Collection<V> values() {
-        this.evict();
-        return this.valueView.values();
-    }
-
-    public Set<Entry<K, V>> entrySet() {
-        this.evict();
-        return this.valueView.entrySet();
-    }
-
-    public Map<K, V> asMap() {
-        this.evict();
-        return this.valueView;
-    }
-
-    public void collect() {
-        this.evict();
-        this.expireQueue.clear();
-        this.expireQueue.addAll(this.keyLookup.values());
-    }
-
-    public void clear() {
-        this.keyLookup.clear();
-        this.expireQueue.clear();
-    }
-
-    protected void evict() {
-        long current = this.ticker.read();
-
-        while(this.expireQueue.size() > 0 && this.expireQueue.peek().time <= current) {
-            ExpireHashMap.ExpireEntry entry = this.expireQueue.poll();
-            if(entry == this.keyLookup.get(entry.key)) {
-                this.keyLookup.remove(entry.key);
-            }
-        }
-    }
-
-    public String toString() {
-        return keyLookup.toString();
-    }
-
-    private class ExpireEntry implements Comparable<ExpireEntry> {
-        public final long time;
-        public final K key;
-        public final V value;
-
-        public ExpireEntry(long time, K key, V value) {
-            this.time = time;
-            this.key = key;
-            this.value = value;
-        }
-
-        public int compareTo(ExpireHashMap<K, V>.ExpireEntry o) {
-            return Longs.compare(this.time, o.time);
-        }
-
-        public String toString() {
-            return "ExpireEntry [time=" + this.time + ", key=" + this.key + ", value=" + this.value + "]";
-        }
-    }
-}
+package lib.brainsynder.storage;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A map where each entry expires after its own delay.
+ *
+ * <p>Expiry is tracked with a hierarchical timing wheel, so putting, refreshing, removing and
+ * expiring an entry are all O(1). When a key is put again its old entry is taken off the wheel
+ * straight away, so keys that are refreshed often do not build up.</p>
+ *
+ * <p>Entries are removed from the wheel up to about a second after they expire, but they
+ * are never returned once their time is up.</p>
+ *
+ * Not thread safe.
+ */
+public class ExpireHashMap<K, V> {
+    // Bucket counts and the time each bucket covers (in nanos) for every level of the wheel
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            1L << 30, // 1.07s
+            1L << 36, // 1.14m
+            1L << 42, // 1.22h
+            1L << 46, // 19.5h
+            1L << 50, // 13d
+            1L << 50
+    };
+    private static final int[] SHIFTS = {30, 36, 42, 46, 50};
+
+    private final Map<K, ExpireEntry<K, V>> keyLookup;
+    private final Map<K, V> valueView;
+    private final Ticker ticker;
+    private final boolean expireAfterAccess;
+    // Times are stored relative to this so they are never negative
+    private final long origin;
+
+    private final ExpireEntry<K, V>[][] wheel;
+    private long nanos = 0;
+    private RemovalListener<K, V> removalListener = null;
+
+    public ExpireHashMap() {
+        this(Ticker.systemTicker());
+    }
+
+    public ExpireHashMap(Ticker ticker) {
+        this(ticker, false);
+    }
+
+    /**
+     * @param ticker            The time source (a fake one can be used to control time)
+     * @param expireAfterAccess If the expire delay should restart every time the entry is read
+     */
+    public ExpireHashMap(Ticker ticker, boolean expireAfterAccess) {
+        this.keyLookup = new HashMap<>();
+        this.valueView = Maps.transformValues(this.keyLookup, entry -> entry.value);
+        this.ticker = ticker;
+        this.expireAfterAccess = expireAfterAccess;
+        this.origin = ticker.read();
+
+        this.wheel = (ExpireEntry<K, V>[][]) new ExpireEntry[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = (ExpireEntry<K, V>[]) new ExpireEntry[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                wheel[i][j] = new ExpireEntry<>();
+            }
+        }
+    }
+
+    /**
+     * Sets what is called whenever an entry is removed (expired, replaced or removed)
+     */
+    public void setRemovalListener(RemovalListener<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     *
+     * @param key The Key you are searching for
+     * @return
+     */
+    public V get(K key) {
+        ExpireEntry<K, V> entry = getLive(key);
+        if (entry == null) return null;
+
+        if (expireAfterAccess) {
+            entry.time = nanos + entry.delay;
+            entry.unlink();
+            schedule(entry);
+        }
+        return entry.value;
+    }
+
+    public V put(K key, V value, long expireDelay, TimeUnit expireUnit) {
+        Preconditions.checkNotNull(expireUnit, "expireUnit cannot be NULL");
+        Preconditions.checkState(expireDelay > 0L, "expireDelay cannot be equal or less than zero.");
+        advance();
+
+        long delay = TimeUnit.NANOSECONDS.convert(expireDelay, expireUnit);
+        ExpireEntry<K, V> entry = new ExpireEntry<>(nanos + delay, delay, key, value);
+        ExpireEntry<K, V> previous = this.keyLookup.put(key, entry);
+        schedule(entry);
+
+        if (previous == null) return null;
+        previous.unlink();
+        if (previous.time <= nanos) {
+            notify(previous, RemovalCause.EXPIRED);
+            return null;
+        }
+        notify(previous, RemovalCause.REPLACED);
+        return previous.value;
+    }
+
+    public boolean containsKey(K key) {
+        return getLive(key) != null;
+    }
+
+    public boolean containsValue(V value) {
+        this.evict();
+        for (ExpireEntry<K, V> entry : this.keyLookup.values()) {
+            if (Objects.equal(value, entry.value)) return true;
+        }
+        return false;
+    }
+
+    public V removeKey(K key) {
+        ExpireEntry<K, V> entry = getLive(key);
+        if (entry == null) return null;
+        this.keyLookup.remove(key);
+        entry.unlink();
+        notify(entry, RemovalCause.EXPLICIT);
+        return entry.value;
+    }
+
+    public int size() {
+        this.evict();
+        return this.keyLookup.size();
+    }
+
+    public Set<K> keySet() {
+        this.evict();
+        return this.keyLookup.keySet();
+    }
+
+    public Collection<V> values() {
+        this.evict();
+        return this.valueView.values();
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        this.evict();
+        return this.valueView.entrySet();
+    }
+
+    public Map<K, V> asMap() {
+        this.evict();
+        return this.valueView;
+    }
+
+    /**
+     * Removes everything that has expired. Replaced entries are already removed when they
+     * are replaced, so there is nothing else to clean up.
+     */
+    public void collect() {
+        this.evict();
+    }
+
+    public void clear() {
+        this.keyLookup.clear();
+        for (ExpireEntry<K, V>[] buckets : wheel) {
+            for (ExpireEntry<K, V> sentinel : buckets) {
+                sentinel.previous = sentinel.next = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Removes every entry that has expired
+     */
+    protected void evict() {
+        advance();
+        // The current bucket is only swept by the wheel once its time has passed
+        ExpireEntry<K, V> sentinel = wheel[0][(int) ((nanos >>> SHIFTS[0]) & (BUCKETS[0] - 1))];
+        for (ExpireEntry<K, V> entry = sentinel.next; entry != sentinel; ) {
+            ExpireEntry<K, V> next = entry.next;
+            if (entry.time <= nanos) expire(entry);
+            entry = next;
+        }
+    }
+
+    public String toString() {
+        return keyLookup.toString();
+    }
+
+    /**
+     * Gets the entry for the key, removing it if it has expired
+     */
+    private ExpireEntry<K, V> getLive(K key) {
+        advance();
+        ExpireEntry<K, V> entry = this.keyLookup.get(key);
+        if (entry == null) return null;
+        if (entry.time <= nanos) {
+            expire(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private void expire(ExpireEntry<K, V> entry) {
+        entry.unlink();
+        // The entry could have been removed through one of the views
+        if (this.keyLookup.get(entry.key) != entry) return;
+        this.keyLookup.remove(entry.key);
+        notify(entry, RemovalCause.EXPIRED);
+    }
+
+    private void notify(ExpireEntry<K, V> entry, RemovalCause cause) {
+        if (removalListener != null) removalListener.onRemoval(entry.key, entry.value, cause);
+    }
+
+    /**
+     * Moves the wheel up to the current time. Every bucket the time has moved past (on each level)
+     * is emptied, the entries in it either expire or move down to a finer level.
+     */
+    private void advance() {
+        long previous = nanos;
+        long current = ticker.read() - origin;
+        if (current <= previous) return;
+        nanos = current;
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long delta = (current >>> SHIFTS[level]) - previousTicks;
+            if (delta <= 0) break;
+            expireBuckets(level, previousTicks, delta);
+        }
+    }
+
+    private void expireBuckets(int level, long previousTicks, long delta) {
+        ExpireEntry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int start = (int) (previousTicks & mask);
+        // The bucket the time is now in is included, its entries move down to a finer level
+        int steps = (int) Math.min(1 + delta, buckets.length);
+
+        for (int i = start; i < start + steps; i++) {
+            ExpireEntry<K, V> sentinel = buckets[i & mask];
+            ExpireEntry<K, V> entry = sentinel.next;
+            sentinel.previous = sentinel.next = sentinel;
+
+            while (entry != sentinel) {
+                ExpireEntry<K, V> next = entry.next;
+                entry.previous = entry.next = null;
+
+                if (entry.time <= nanos) {
+                    expire(entry);
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    private void schedule(ExpireEntry<K, V> entry) {
+        long duration = entry.time - nanos;
+        for (int level = 0; level < BUCKETS.length; level++) {
+            if (duration < SPANS[level + 1]) {
+                long ticks = entry.time >>> SHIFTS[level];
+                entry.link(wheel[level][(int) (ticks & (BUCKETS[level] - 1))]);
+                return;
+            }
+        }
+        // Further away than the wheel covers, it gets checked again once the last bucket comes round
+        entry.link(wheel[BUCKETS.length - 1][0]);
+    }
+
+    public enum RemovalCause {
+        /** The entry's time ran out */
+        EXPIRED,
+        /** The key was put again */
+        REPLACED,
+        /** The key was removed with {@link #removeKey(Object)} */
+        EXPLICIT
+    }
+
+    public interface RemovalListener<K, V> {
+        void onRemoval(K key, V value, RemovalCause cause);
+    }
+
+    private static class ExpireEntry<K, V> {
+        private long time;
+        private final long delay;
+        private final K key;
+        private final V value;
+        // The links in the wheel bucket (the bucket itself is a sentinel entry)
+        private ExpireEntry<K, V> previous;
+        private ExpireEntry<K, V> next;
+
+        private ExpireEntry() {
+            this(0, 0, null, null);
+            this.previous = this.next = this;
+        }
+
+        private ExpireEntry(long time, long delay, K key, V value) {
+            this.time = time;
+            this.delay = delay;
+            this.key = key;
+            this.value = value;
+        }
+
+        private void link(ExpireEntry<K, V> sentinel) {
+            this.previous = sentinel.previous;
+            this.next = sentinel;
+            sentinel.previous.next = this;
+            sentinel.previous = this;
+        }
+
+        private void unlink() {
+            if (next == null) return;
+            previous.next = next;
+            next.previous = previous;
+            previous = next = null;
+        }
+
+        public String toString() {
+            return "ExpireEntry [time=" + this.time + ", key=" + this.key + ", value=" + this.value + "]";
+        }
+    }
+}
@@ -2,7 +2,9 @@ package lib.brainsynder.utils;
 
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
+import com.google.common.base.Ticker;
 import lib.brainsynder.reflection.Reflection;
+import lib.brainsynder.storage.ConcurrentCache;
 import lib.brainsynder.utils.compnent.Part;
 import net.md_5.bungee.api.ChatColor;
 import org.bukkit.Color;
@@ -10,14 +12,25 @@ import org.bukkit.Color;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Colorize {
     private static final Pattern HEX_PATTERN = Pattern.compile("&#(\\w{5}[0-9a-fA-F])");
+    private static final boolean[] COLOR_CODES = new boolean[128];
+    private static final boolean[] HEX_DIGITS = new boolean[128];
+    /** Roughly how many characters of translated text are cached */
+    public static final int CACHE_WEIGHT = 1 << 18;
+    // Lines are usually well under 100 characters (translated and not), so about this many fit in the weight
+    private static final int CACHE_ENTRIES = CACHE_WEIGHT / 64;
+    private static final ConcurrentCache<String, String> TRANSLATED = new ConcurrentCache<>(CACHE_WEIGHT,
+            (text, translated) -> text.length() + translated.length(), CACHE_ENTRIES, 0, TimeUnit.SECONDS, Ticker.systemTicker());
     private static Method of;
 
     static {
+        for (char c : "0123456789abcdefABCDEF".toCharArray()) HEX_DIGITS[c] = true;
+        for (char c : "0123456789abcdefklmnorxABCDEFKLMNORX".toCharArray()) COLOR_CODES[c] = true;
         try {
             of = Reflection.getMethod(ChatColor.class, "of", String.class);
         } catch (Exception e) {
@@ -84,30 +97,81 @@ public class Colorize {
      * Translates the {@param text} that use the '&' symbol
      * It also allows for hex colors (Example: '&#FFFFFF' = white)
      *
+     * <p>Results are cached (the same config strings get translated over and over), the cache is
+     * bounded to about {@link #CACHE_WEIGHT} characters.</p>
+     *
      * @param text - text to be translated
      * @return the colorized text
      */
     public static String translateBungeeHex(String text) {
         if ((text == null) || text.isEmpty()) return text;
-        text = text.replace(ChatColor.COLOR_CHAR, '&');
-        Matcher matcher = HEX_PATTERN.matcher(text);
-        StringBuffer buffer = new StringBuffer();
+        String translated = TRANSLATED.getIfPresent(text);
+        if (translated != null) return translated;
 
-        while (matcher.find()) {
-            String replacement = "";
-            if (of != null) {
+        translated = compileBungeeHex(text);
+        TRANSLATED.put(text, translated);
+        return translated;
+    }
 
-                // This is mostly in case someone is using a legacy version (EG below 1.16)
-                try {
-                    replacement = String.valueOf(Reflection.invoke(of, null, "#" + matcher.group(1)));
-                } catch (Exception ignored) {
+    /**
+     * Does the same as {@link #translateBungeeHex(String)} without the cache, useful for text that
+     * is only translated once (EG: chat messages)
+     *
+     * <p>Replaces the '&' color codes and '&#RRGGBB' hex colors in a single pass</p>
+     */
+    public static String compileBungeeHex(String text) {
+        if ((text == null) || text.isEmpty()) return text;
+        int length = text.length();
+        // Every '&#RRGGBB' (8 chars) turns into '§x§R§R§G§G§B§B' (14 chars), nothing else gets longer
+        char[] output = new char[length + ((length >> 3) + 1) * 6];
+        int size = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c != '&') && (c != ChatColor.COLOR_CHAR)) {
+                output[size++] = c;
+                continue;
+            }
+
+            if (isHexColor(text, i)) {
+                // Below 1.16 there are no hex colors, so they are just removed
+                if (of != null) {
+                    output[size++] = ChatColor.COLOR_CHAR;
+                    output[size++] = 'x';
+                    for (int j = i + 2; j < i + 8; j++) {
+                        output[size++] = ChatColor.COLOR_CHAR;
+                        output[size++] = Character.toLowerCase(text.charAt(j));
+                    }
                 }
+                i += 7;
+                continue;
+            }
+
+            if (((i + 1) < length) && isColorCode(text.charAt(i + 1))) {
+                output[size++] = ChatColor.COLOR_CHAR;
+                output[size++] = Character.toLowerCase(text.charAt(++i));
+                continue;
             }
+            // A '§' that is not followed by a color code still gets turned into a '&'
+            output[size++] = '&';
+        }
+        return new String(output, 0, size);
+    }
 
-            matcher.appendReplacement(buffer, replacement).toString();
+    /**
+     * Checks for '&#' followed by 6 hex digits
+     */
+    private static boolean isHexColor(String text, int start) {
+        if (((start + 7) >= text.length()) || (text.charAt(start + 1) != '#')) return false;
+        for (int i = start + 2; i <= start + 7; i++) {
+            char c = text.charAt(i);
+            if ((c >= 128) || !HEX_DIGITS[c]) return false;
         }
+        return true;
+    }
 
-        return ChatColor.translateAlternateColorCodes('&', matcher.appendTail(buffer).toString());
+    private static boolean isColorCode(char c) {
+        return (c < 128) && COLOR_CODES[c];
     }
 
     /**
@@ -160,49 +224,57 @@ public class Colorize {
         return json;
     }
 
+    /**
+     * Splits the text into a {@link Part} for every '&' (or '§') color code, in a single pass.
+     * The text before the first color code is kept as a Part without a color.
+     */
     public static List<Part> splitMessageToParts(String value) {
         List<Part> parts = new ArrayList<>();
         // String is empty
         if ((value == null) || value.isEmpty()) return parts;
-        value = value.replace(org.bukkit.ChatColor.COLOR_CHAR, '&');
-
-        if (value.contains("&")) {
-            String[] args = value.split("&");
 
-            for (String string : args) {
-                if (string == null) continue;
-                if (string.isEmpty()) continue;
-
-                // Has hex color
-
-                Part part = new Part();
-                if (string.startsWith("#")) {
-                    // 0-6
-
-                    StringBuilder HEX = new StringBuilder();
-                    int end = 6;
-                    // If the '&x' is at the end of the string ignore it
-                    for (int i = -1; i < end; i++) HEX.append(string.charAt(i + 1));
-                    part.text = string.replace(HEX.toString(), "");
-                    part.customColor = hex2Color(HEX.toString());
+        int code = nextCode(value, 0);
+        if (code == -1) {
+            // 'value' does not contain '&'
+            parts.add(new Part(value));
+            return parts;
+        }
+        if (code > 0) parts.add(new Part(value.substring(0, code)));
+
+        while (code != -1) {
+            int start = code + 1;
+            int end = nextCode(value, start);
+            if (end == -1) end = value.length();
+            code = (end == value.length()) ? -1 : end;
+            if (start == end) continue;
+
+            Part part = new Part();
+            char first = value.charAt(start);
+            if ((first == '#') && ((end - start) >= 7) && isHexColor(value, start - 1)) {
+                part.customColor = hex2Color(value.substring(start, start + 7));
+                part.text = value.substring(start + 7, end);
+            } else {
+                org.bukkit.ChatColor color = (first == '#') ? null : org.bukkit.ChatColor.getByChar(first);
+                if (color == null) {
+                    part.text = "&" + value.substring(start, end);
                 } else {
-                    org.bukkit.ChatColor color = org.bukkit.ChatColor.getByChar(string.charAt(0));
-                    if (color == null) {
-                        part.text = "&" + string;
-                    } else {
-                        part.text = string.replaceFirst(String.valueOf(string.charAt(0)), "");
-                        part.color = color;
-                    }
+                    part.text = value.substring(start + 1, end);
+                    part.color = color;
                 }
-                parts.add(part);
             }
-        } else {
-            // 'value' does not contain '&'
-            parts.add(new Part(value));
+            parts.add(part);
         }
         return parts;
     }
 
+    private static int nextCode(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c == '&') || (c == ChatColor.COLOR_CHAR)) return i;
+        }
+        return -1;
+    }
+
     public static Color hex2Color(String hex) {
         return Color.fromRGB(
                 Integer.valueOf(hex.substring(1, 3), 16),
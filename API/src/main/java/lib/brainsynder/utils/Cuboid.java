@@ -157,7 +157,7 @@ public class Cuboid implements Cloneable {
      */
     public List<Block> getBlocks() {
         Iterator<Block> blockI = this.iterator();
-        List<Block> copy = new ArrayList<>();
+        List<Block> copy = new ArrayList<>(Math.max(this.getVolume(), 0));
         while (blockI.hasNext())
             copy.add(blockI.next());
         return copy;
@@ -418,6 +418,19 @@ public class Cuboid implements Cloneable {
         return this.contains(l.getX(), l.getY(), l.getZ());
     }
 
+    /**
+     * Check if the given Cuboid shares at least one block with this Cuboid.
+     *
+     * @param other - The Cuboid to check for
+     * @return true if the Cuboids overlap, false otherwise (or if they are in different worlds)
+     */
+    public boolean intersects(Cuboid other) {
+        if (!this.worldName.equals(other.worldName))
+            return false;
+        return other.x1 <= this.x2 && other.x2 >= this.x1 && other.y1 <= this.y2
+                && other.y2 >= this.y1 && other.z1 <= this.z2 && other.z2 >= this.z1;
+    }
+
     /**
      * Get the volume of this Cuboid.
      *
@@ -436,7 +449,9 @@ public class Cuboid implements Cloneable {
     public byte getAverageLightLevel() {
         long total = 0;
         int n = 0;
-        for (Block b : getBlocks()) {
+        Iterator<Block> blockI = this.iterator();
+        while (blockI.hasNext()) {
+            Block b = blockI.next();
             if (b.isEmpty()) {
                 total += b.getLightLevel();
                 ++n;
@@ -672,13 +687,24 @@ public class Cuboid implements Cloneable {
     }
 
     public boolean isEmpty() {
-        for (Block b : getBlocks()) {
-            if (b.getType() != Material.AIR)
+        Iterator<Block> blockI = this.iterator();
+        while (blockI.hasNext()) {
+            if (blockI.next().getType() != Material.AIR)
                 return false;
         }
         return true;
     }
 
+    /**
+     * Take snapshots of the chunks this Cuboid covers, so the BLOCKS can be
+     * scanned off the main thread. Has to be called on the main thread.
+     *
+     * @return The scan for this Cuboid
+     */
+    public CuboidScan snapshot() {
+        return new CuboidScan(this);
+    }
+
     public BlockLocation getCorner1() {
         return new BlockLocation(Bukkit.getWorld(worldName), x1, y1, z1);
     }
@@ -0,0 +1,286 @@
+package lib.brainsynder.utils;
+
+import lib.brainsynder.nbt.StorageTagCompound;
+import lib.brainsynder.nbt.StorageTagList;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Spatial index for finding which {@link Cuboid}s contain a point or intersect a box,
+ * without checking every cuboid.
+ *
+ * <p>Each world has a grid of columns (X/Z). A cuboid is stored in every chunk sized (16x16)
+ * column it covers. Cuboids that would cover too many chunks go in a coarser 256x256 grid, and
+ * cuboids too big for that are kept in a small list that every query checks. A point query
+ * only looks at the cuboids in the point's columns.</p>
+ *
+ * <pre>
+ * CuboidIndex index = new CuboidIndex();
+ * regions.forEach(index::add);
+ *
+ * // In a PlayerMoveEvent
+ * for (Cuboid region : index.getContaining(new BlockLocation(event.getTo()))) ...
+ * </pre>
+ *
+ * Cuboids are matched by instance, not by bounds. Should only be used on one thread (EG: the main thread).
+ */
+public class CuboidIndex {
+    // Cell sizes of the grids (1 << shift), fine to coarse
+    private static final int[] SHIFTS = {4, 8};
+    // The most cells a cuboid can be stored in before it moves to the next grid
+    private static final int MAX_CELLS = 64;
+
+    private final Map<String, WorldIndex> worlds = new HashMap<>();
+    private int size = 0;
+
+    public CuboidIndex() {
+    }
+
+    /**
+     * Builds the index from a compound made by {@link #serialize()}
+     */
+    public CuboidIndex(StorageTagCompound compound) {
+        StorageTagList list = (StorageTagList) compound.getTag("cuboids");
+        if (list == null) return;
+        for (int i = 0; i < list.tagCount(); i++) {
+            add(new Cuboid(list.getCompoundTagAt(i)));
+        }
+    }
+
+    /**
+     * Stores every cuboid with {@link Cuboid#serialize()}
+     */
+    public StorageTagCompound serialize() {
+        StorageTagList list = new StorageTagList();
+        forEach(cuboid -> list.appendTag(cuboid.serialize()));
+        StorageTagCompound compound = new StorageTagCompound();
+        compound.setTag("cuboids", list);
+        return compound;
+    }
+
+    /**
+     * Adds the cuboid to the index
+     *
+     * @return false if this cuboid was already in the index
+     */
+    public boolean add(Cuboid cuboid) {
+        WorldIndex index = worlds.computeIfAbsent(cuboid.worldName, name -> new WorldIndex());
+        if (!index.add(cuboid)) return false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the cuboid from the index
+     *
+     * @return false if the cuboid was not in the index
+     */
+    public boolean remove(Cuboid cuboid) {
+        WorldIndex index = worlds.get(cuboid.worldName);
+        if ((index == null) || !index.remove(cuboid)) return false;
+        if (index.isEmpty()) worlds.remove(cuboid.worldName);
+        size--;
+        return true;
+    }
+
+    public boolean contains(Cuboid cuboid) {
+        WorldIndex index = worlds.get(cuboid.worldName);
+        return (index != null) && index.levels.containsKey(cuboid);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        worlds.clear();
+        size = 0;
+    }
+
+    public void forEach(Consumer<Cuboid> consumer) {
+        worlds.values().forEach(index -> index.levels.keySet().forEach(consumer));
+    }
+
+    /**
+     * Finds every cuboid that contains the location
+     */
+    public List<Cuboid> getContaining(BlockLocation location) {
+        return getContaining(location.getWorld().getName(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Finds every cuboid in the world that contains the point
+     */
+    public List<Cuboid> getContaining(String worldName, int x, int y, int z) {
+        List<Cuboid> list = new ArrayList<>();
+        forEachContaining(worldName, x, y, z, list::add);
+        return list;
+    }
+
+    /**
+     * Checks if any cuboid contains the point
+     */
+    public boolean isInsideAny(String worldName, int x, int y, int z) {
+        WorldIndex index = worlds.get(worldName);
+        if (index == null) return false;
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            List<Cuboid> cell = index.grids.get(level).get(cellKey(x >> SHIFTS[level], z >> SHIFTS[level]));
+            if (cell == null) continue;
+            for (Cuboid cuboid : cell) {
+                if (cuboid.contains(x, y, z)) return true;
+            }
+        }
+        for (Cuboid cuboid : index.large) {
+            if (cuboid.contains(x, y, z)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs the consumer for every cuboid in the world that contains the point
+     */
+    public void forEachContaining(String worldName, int x, int y, int z, Consumer<Cuboid> consumer) {
+        WorldIndex index = worlds.get(worldName);
+        if (index == null) return;
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            // A point is only ever in one cell per grid, so nothing is found twice
+            List<Cuboid> cell = index.grids.get(level).get(cellKey(x >> SHIFTS[level], z >> SHIFTS[level]));
+            if (cell == null) continue;
+            for (Cuboid cuboid : cell) {
+                if (cuboid.contains(x, y, z)) consumer.accept(cuboid);
+            }
+        }
+        for (Cuboid cuboid : index.large) {
+            if (cuboid.contains(x, y, z)) consumer.accept(cuboid);
+        }
+    }
+
+    /**
+     * Finds every cuboid that intersects (shares at least one block with) the box
+     */
+    public List<Cuboid> getIntersecting(Cuboid box) {
+        List<Cuboid> list = new ArrayList<>();
+        forEachIntersecting(box, list::add);
+        return list;
+    }
+
+    /**
+     * Runs the consumer for every cuboid that intersects (shares at least one block with) the box
+     */
+    public void forEachIntersecting(Cuboid box, Consumer<Cuboid> consumer) {
+        WorldIndex index = worlds.get(box.worldName);
+        if (index == null) return;
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            int shift = SHIFTS[level];
+            Map<Long, List<Cuboid>> grid = index.grids.get(level);
+            for (int cellX = box.x1 >> shift; cellX <= (box.x2 >> shift); cellX++) {
+                for (int cellZ = box.z1 >> shift; cellZ <= (box.z2 >> shift); cellZ++) {
+                    List<Cuboid> cell = grid.get(cellKey(cellX, cellZ));
+                    if (cell == null) continue;
+                    for (Cuboid cuboid : cell) {
+                        if (!cuboid.intersects(box)) continue;
+                        // A cuboid can be in many of the cells, it is only reported from the cell where the overlap starts
+                        if ((cellX != (Math.max(cuboid.x1, box.x1) >> shift))
+                                || (cellZ != (Math.max(cuboid.z1, box.z1) >> shift))) continue;
+                        consumer.accept(cuboid);
+                    }
+                }
+            }
+        }
+        for (Cuboid cuboid : index.large) {
+            if (cuboid.intersects(box)) consumer.accept(cuboid);
+        }
+    }
+
+    private static long cellKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Picks the grid the cuboid is stored in, or {@link #SHIFTS}.length for the large list
+     */
+    private static int getLevel(Cuboid cuboid) {
+        for (int level = 0; level < SHIFTS.length; level++) {
+            int shift = SHIFTS[level];
+            long cells = (long) ((cuboid.x2 >> shift) - (cuboid.x1 >> shift) + 1)
+                    * ((cuboid.z2 >> shift) - (cuboid.z1 >> shift) + 1);
+            if (cells <= MAX_CELLS) return level;
+        }
+        return SHIFTS.length;
+    }
+
+    private static final class WorldIndex {
+        private final List<Map<Long, List<Cuboid>>> grids = new ArrayList<>(SHIFTS.length);
+        private final List<Cuboid> large = new ArrayList<>();
+        // The level each cuboid was stored at
+        private final Map<Cuboid, Integer> levels = new IdentityHashMap<>();
+
+        private WorldIndex() {
+            for (int i = 0; i < SHIFTS.length; i++) grids.add(new HashMap<>());
+        }
+
+        private boolean add(Cuboid cuboid) {
+            if (levels.containsKey(cuboid)) return false;
+            int level = getLevel(cuboid);
+            levels.put(cuboid, level);
+
+            if (level == SHIFTS.length) {
+                large.add(cuboid);
+                return true;
+            }
+
+            int shift = SHIFTS[level];
+            Map<Long, List<Cuboid>> grid = grids.get(level);
+            for (int cellX = cuboid.x1 >> shift; cellX <= (cuboid.x2 >> shift); cellX++) {
+                for (int cellZ = cuboid.z1 >> shift; cellZ <= (cuboid.z2 >> shift); cellZ++) {
+                    grid.computeIfAbsent(cellKey(cellX, cellZ), key -> new ArrayList<>(2)).add(cuboid);
+                }
+            }
+            return true;
+        }
+
+        private boolean remove(Cuboid cuboid) {
+            Integer level = levels.remove(cuboid);
+            if (level == null) return false;
+
+            if (level == SHIFTS.length) {
+                removeInstance(large, cuboid);
+                return true;
+            }
+
+            int shift = SHIFTS[level];
+            Map<Long, List<Cuboid>> grid = grids.get(level);
+            for (int cellX = cuboid.x1 >> shift; cellX <= (cuboid.x2 >> shift); cellX++) {
+                for (int cellZ = cuboid.z1 >> shift; cellZ <= (cuboid.z2 >> shift); cellZ++) {
+                    long key = cellKey(cellX, cellZ);
+                    List<Cuboid> cell = grid.get(key);
+                    if (cell == null) continue;
+                    removeInstance(cell, cuboid);
+                    if (cell.isEmpty()) grid.remove(key);
+                }
+            }
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return levels.isEmpty();
+        }
+
+        private static void removeInstance(List<Cuboid> list, Cuboid cuboid) {
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == cuboid) {
+                    list.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+}
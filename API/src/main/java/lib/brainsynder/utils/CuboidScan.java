@@ -0,0 +1,198 @@
+package lib.brainsynder.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Snapshots of the chunks a {@link Cuboid} covers, which can be scanned off the main thread.
+ *
+ * <p>The snapshots are taken when the scan is created (so that has to be on the main thread).
+ * After that every scan reads straight from the snapshots, without creating a
+ * {@link org.bukkit.block.Block} for each position. The parallel scans split the work by chunk.</p>
+ *
+ * <pre>
+ * CuboidScan scan = cuboid.snapshot();
+ * scan.supplyAsync(CuboidScan::isEmpty).thenAccept(empty -> ...);
+ * </pre>
+ */
+public class CuboidScan {
+    private static final EnumSet<Material> AIR = EnumSet.noneOf(Material.class);
+
+    static {
+        // CAVE_AIR and VOID_AIR do not exist on older versions
+        for (Material material : Material.values()) {
+            if (material.name().equals("AIR") || material.name().endsWith("_AIR")) AIR.add(material);
+        }
+    }
+
+    private final int x1, y1, z1;
+    private final int x2, y2, z2;
+    private final List<ChunkSnapshot> snapshots;
+
+    /**
+     * Takes the snapshots, this has to be run on the main thread.
+     * Chunks that are not loaded will be loaded.
+     */
+    public CuboidScan(Cuboid cuboid) {
+        World world = cuboid.getWorld();
+        int minY = 0;
+        try {
+            minY = world.getMinHeight();
+        } catch (NoSuchMethodError ignored) {
+            // Pre 1.17 worlds always start at 0
+        }
+
+        this.x1 = cuboid.x1;
+        this.z1 = cuboid.z1;
+        this.x2 = cuboid.x2;
+        this.z2 = cuboid.z2;
+        this.y1 = Math.max(cuboid.y1, minY);
+        this.y2 = Math.min(cuboid.y2, world.getMaxHeight() - 1);
+
+        List<ChunkSnapshot> snapshots = new ArrayList<>();
+        for (int chunkX = x1 >> 4; chunkX <= (x2 >> 4); chunkX++) {
+            for (int chunkZ = z1 >> 4; chunkZ <= (z2 >> 4); chunkZ++) {
+                snapshots.add(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot());
+            }
+        }
+        this.snapshots = Collections.unmodifiableList(snapshots);
+    }
+
+    public List<ChunkSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Runs the scan on another thread
+     */
+    public <T> CompletableFuture<T> supplyAsync(Function<CuboidScan, T> scan) {
+        return CompletableFuture.supplyAsync(() -> scan.apply(this));
+    }
+
+    /**
+     * Visits every position in the cuboid, on the calling thread
+     */
+    public void forEach(BlockVisitor visitor) {
+        for (ChunkSnapshot chunk : snapshots) {
+            scanChunk(chunk, (x, y, z, type, snapshot) -> {
+                visitor.visit(x, y, z, type, snapshot);
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Visits every position in the cuboid, chunks are visited at the same time on different threads
+     * so the visitor has to be thread safe
+     */
+    public void parallelForEach(BlockVisitor visitor) {
+        snapshots.parallelStream().forEach(chunk -> scanChunk(chunk, (x, y, z, type, snapshot) -> {
+            visitor.visit(x, y, z, type, snapshot);
+            return false;
+        }));
+    }
+
+    /**
+     * Checks if any position matches, stops scanning on the first match
+     */
+    public boolean anyMatch(BlockPredicate predicate) {
+        return snapshots.parallelStream().anyMatch(chunk -> scanChunk(chunk, predicate));
+    }
+
+    /**
+     * Checks if every position matches, stops scanning on the first one that does not
+     */
+    public boolean allMatch(BlockPredicate predicate) {
+        return !anyMatch((x, y, z, type, snapshot) -> !predicate.test(x, y, z, type, snapshot));
+    }
+
+    /**
+     * Counts the positions that match
+     */
+    public long count(BlockPredicate predicate) {
+        return snapshots.parallelStream().mapToLong(chunk -> {
+            long[] count = {0};
+            scanChunk(chunk, (x, y, z, type, snapshot) -> {
+                if (predicate.test(x, y, z, type, snapshot)) count[0]++;
+                return false;
+            });
+            return count[0];
+        }).sum();
+    }
+
+    /**
+     * Same as {@link Cuboid#isEmpty()}
+     */
+    public boolean isEmpty() {
+        return allMatch((x, y, z, type, snapshot) -> type == Material.AIR);
+    }
+
+    /**
+     * Same as {@link Cuboid#getAverageLightLevel()}, but sky light is not dimmed by the time of day
+     */
+    public byte getAverageLightLevel() {
+        long[] totals = snapshots.parallelStream().map(chunk -> {
+            long[] total = {0, 0};
+            scanChunk(chunk, (x, y, z, type, snapshot) -> {
+                if (!AIR.contains(type)) return false;
+                total[0] += Math.max(snapshot.getBlockSkyLight(x & 15, y, z & 15), snapshot.getBlockEmittedLight(x & 15, y, z & 15));
+                total[1]++;
+                return false;
+            });
+            return total;
+        }).reduce(new long[]{0, 0}, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+        return (totals[1] > 0) ? (byte) (totals[0] / totals[1]) : 0;
+    }
+
+    /**
+     * Runs the predicate for the part of the cuboid inside the chunk
+     *
+     * @return true if the predicate matched (the scan stops there)
+     */
+    private boolean scanChunk(ChunkSnapshot chunk, BlockPredicate predicate) {
+        int baseX = chunk.getX() << 4;
+        int baseZ = chunk.getZ() << 4;
+        int minX = Math.max(x1, baseX), maxX = Math.min(x2, baseX + 15);
+        int minZ = Math.max(z1, baseZ), maxZ = Math.min(z2, baseZ + 15);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = y1; y <= y2; y++) {
+                    Material type = chunk.getBlockType(x & 15, y, z & 15);
+                    if (predicate.test(x, y, z, type, chunk)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public interface BlockVisitor {
+        /**
+         * @param x        World X co-ordinate
+         * @param y        World Y co-ordinate
+         * @param z        World Z co-ordinate
+         * @param type     The block type at the position
+         * @param snapshot The chunk the position is in (use {@code x & 15, y, z & 15} for anything else, EG: block data)
+         */
+        void visit(int x, int y, int z, Material type, ChunkSnapshot snapshot);
+    }
+
+    public interface BlockPredicate {
+        /**
+         * @param x        World X co-ordinate
+         * @param y        World Y co-ordinate
+         * @param z        World Z co-ordinate
+         * @param type     The block type at the position
+         * @param snapshot The chunk the position is in (use {@code x & 15, y, z & 15} for anything else, EG: block data)
+         */
+        boolean test(int x, int y, int z, Material type, ChunkSnapshot snapshot);
+    }
+}
@@ -2,13 +2,20 @@ package lib.brainsynder.utils;
 
 import com.eclipsesource.json.JsonObject;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Safe to use from any thread. The durations are also recorded in the {@link Profiler} (when it is enabled).
+ */
 public class DelayFinder {
-    private static final Map<String, Long> startTimeMap = new HashMap<>();
-    private static final LinkedHashMap<String, LinkedHashMap<String, Result>> storedTimeMap = new LinkedHashMap<>();
+    // Used as the duration of a task that has been started but not finished
+    private static final long UNFINISHED = -1;
+
+    private static final Map<String, Long> startTimeMap = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, Long>> storedTimeMap = Collections.synchronizedMap(new LinkedHashMap<>());
 
     public static void runTask (Object instance, String name, Runnable runnable) {
         trackDelay(instance, name);
@@ -24,57 +31,16 @@ public class DelayFinder {
      */
     public static long trackDelay(Object instance, String taskName) {
         String className = instance.getClass().getSimpleName();
-
-        LinkedHashMap<String, Result> map = storedTimeMap.getOrDefault(className, new LinkedHashMap<>());
         String key = className + "|" + taskName;
-        if (startTimeMap.containsKey(key)) {
-            long start = startTimeMap.get(key);
-            long end = System.nanoTime();
-            long diff = (end - start) / 1000000;
-
-            if (diff <= 0) {
-                long finalDiff = (end - start);
-                map.put(taskName, new Result() {
-                    @Override
-                    public String suffix() {
-                        return "ns";
-                    }
-
-                    @Override
-                    public long diff() {
-                        return finalDiff;
-                    }
-                });
-            }else{
-                map.put(taskName, new Result() {
-                    @Override
-                    public String suffix() {
-                        return "ms";
-                    }
 
-                    @Override
-                    public long diff() {
-                        return diff;
-                    }
-                });
-            }
-            // Will log what class and how long the task(s) took.
-            startTimeMap.remove(key);
-            storedTimeMap.put(className, map);
-            return diff;
+        Long start = startTimeMap.remove(key);
+        if (start != null) {
+            long nanos = System.nanoTime() - start;
+            if (Profiler.isEnabled()) Profiler.recordNanos(className + " - " + taskName, nanos);
+            store(className, taskName, nanos);
+            return nanos / 1000000;
         }
-        map.put(taskName, new Result() {
-            @Override
-            public String suffix() {
-                return "ms";
-            }
-
-            @Override
-            public long diff() {
-                return -1;
-            }
-        });
-        storedTimeMap.put(className, map);
+        store(className, taskName, UNFINISHED);
         startTimeMap.put(key, System.nanoTime());
         return 0;
     }
@@ -84,22 +50,15 @@ public class DelayFinder {
      */
     public static JsonObject fetchUnfinished () {
         JsonObject json = new JsonObject();
+        long end = System.nanoTime();
         startTimeMap.forEach((s, start) -> {
-            long end = System.nanoTime();
-            long diff = (end - start) / 1000000;
-            String suffix = "ms";
-
-            if (diff <= 0) {
-                diff = (end - start);
-                suffix = "ns";
-            }
-
-            String[] args = s.split("|");
-            String className = args[0];
+            // Class names can not contain a '|', so the first one is the separator
+            int split = s.indexOf('|');
+            String className = s.substring(0, split);
+            String task = s.substring(split + 1);
 
             JsonObject classJson = (json.names().contains(className) ? (JsonObject) json.get(className) : new JsonObject());
-            String task = args[1];
-            classJson.set(task, diff+suffix);
+            classJson.set(task, format(end - start));
             json.set(className, classJson);
         });
         return json;
@@ -110,16 +69,31 @@ public class DelayFinder {
      */
     public static JsonObject toJson () {
         JsonObject json = new JsonObject();
-        storedTimeMap.forEach((className, map) -> {
-            JsonObject object = new JsonObject();
-            map.forEach((task, result) -> object.add(task, result.diff()+result.suffix()));
-            json.set(className, object);
-        });
+        synchronized (storedTimeMap) {
+            storedTimeMap.forEach((className, map) -> {
+                JsonObject object = new JsonObject();
+                synchronized (map) {
+                    map.forEach((task, nanos) -> object.add(task, (nanos == UNFINISHED) ? "-1ms" : format(nanos)));
+                }
+                json.set(className, object);
+            });
+        }
+
+        JsonObject profiler = Profiler.toJson();
+        if (!profiler.isEmpty()) json.set("profiler", profiler);
         return json;
     }
 
-    private interface Result {
-        String suffix ();
-        long diff();
+    private static void store(String className, String taskName, long nanos) {
+        Map<String, Long> map = storedTimeMap.computeIfAbsent(className, name -> Collections.synchronizedMap(new LinkedHashMap<>()));
+        map.put(taskName, nanos);
+    }
+
+    /**
+     * Formats the duration in milliseconds, or nanoseconds if it took less than a millisecond
+     */
+    private static String format(long nanos) {
+        long millis = nanos / 1000000;
+        return (millis <= 0) ? nanos + "ns" : millis + "ms";
     }
-}
\ No newline at end of file
+}
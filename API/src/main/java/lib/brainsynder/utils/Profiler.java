@@ -0,0 +1,298 @@
+package lib.brainsynder.utils;
+
+import com.eclipsesource.json.JsonObject;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records how long labelled tasks take and keeps a histogram per label, so the
+ * median/95th/99th percentile and the slowest run can be looked up later.
+ *
+ * <p>Safe to use from any thread. Each thread records into its own buffer, and the buffers are only
+ * merged when the results are read. The buffers of threads that have stopped are merged into one
+ * and dropped, so short lived threads do not build up. Recording is off by default. While it is off,
+ * {@link #start()} and {@link #record(String, long)} do nothing but read one field.</p>
+ *
+ * <pre>
+ * long start = Profiler.start();
+ * ... the task ...
+ * Profiler.record("Pathfinding", start);
+ * </pre>
+ *
+ * {@link TaskTimer} and {@link DelayFinder} also record into this, their JSON output includes it.
+ */
+public final class Profiler {
+    // 32 buckets for each power of two, the value of a bucket is within about 3% of what was recorded
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private static final List<Buffer> BUFFERS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Buffer> LOCAL = ThreadLocal.withInitial(() -> {
+        retireStopped();
+        Buffer buffer = new Buffer();
+        BUFFERS.add(buffer);
+        return buffer;
+    });
+    // What the threads that have stopped recorded (guarded by the class)
+    private static final Map<String, Histogram> RETIRED = new HashMap<>();
+
+    private static volatile boolean enabled = false;
+    // Bumped by reset(), buffers from an older epoch are cleared before they are used again
+    private static volatile int epoch = 0;
+
+    private Profiler() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * Gets the start time for {@link #record(String, long)}, or 0 if the profiler is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the start
+     *
+     * @param start The time from {@link #start()}
+     */
+    public static void record(String label, long start) {
+        if ((start == 0) || !enabled) return;
+        recordNanos(label, System.nanoTime() - start);
+    }
+
+    /**
+     * Records a duration that was measured some other way
+     */
+    public static void recordNanos(String label, long nanos) {
+        if (!enabled) return;
+        LOCAL.get().record(label, Math.max(nanos, 0));
+    }
+
+    /**
+     * Forgets everything that has been recorded
+     */
+    public static synchronized void reset() {
+        epoch++;
+        RETIRED.clear();
+    }
+
+    /**
+     * Merges what every thread has recorded
+     */
+    public static synchronized Map<String, Stats> snapshot() {
+        retireStopped();
+        int current = epoch;
+        Map<String, Histogram> merged = new TreeMap<>();
+        RETIRED.forEach((label, histogram) -> merged.computeIfAbsent(label, key -> new Histogram()).add(histogram));
+        for (Buffer buffer : BUFFERS) {
+            if (buffer.epoch != current) continue;
+            for (Map.Entry<String, Histogram> entry : buffer.entries()) {
+                merged.computeIfAbsent(entry.getKey(), key -> new Histogram()).add(entry.getValue());
+            }
+        }
+
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        merged.forEach((label, histogram) -> {
+            if (histogram.count != 0) stats.put(label, histogram.toStats());
+        });
+        return stats;
+    }
+
+    /**
+     * Merges the buffers of threads that have stopped into {@link #RETIRED} and drops them
+     */
+    private static synchronized void retireStopped() {
+        int current = epoch;
+        for (Buffer buffer : BUFFERS) {
+            Thread owner = buffer.owner.get();
+            if ((owner != null) && owner.isAlive()) continue;
+            BUFFERS.remove(buffer);
+            if (buffer.epoch != current) continue;
+            for (Map.Entry<String, Histogram> entry : buffer.entries()) {
+                RETIRED.computeIfAbsent(entry.getKey(), key -> new Histogram()).add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * The stats of every label, the times are in milliseconds
+     */
+    public static JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        snapshot().forEach((label, stats) -> {
+            JsonObject object = new JsonObject();
+            object.add("count", stats.getCount());
+            object.add("mean", formatMillis(stats.getMean()) + "ms");
+            object.add("p50", formatMillis(stats.getP50()) + "ms");
+            object.add("p95", formatMillis(stats.getP95()) + "ms");
+            object.add("p99", formatMillis(stats.getP99()) + "ms");
+            object.add("max", formatMillis(stats.getMax()) + "ms");
+            json.add(label, object);
+        });
+        return json;
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds with 3 decimals (EG: 1.234)
+     */
+    public static String formatMillis(long nanos) {
+        long micros = (nanos + 500) / 1000;
+        long fraction = micros % 1000;
+        StringBuilder builder = new StringBuilder().append(micros / 1000).append('.');
+        if (fraction < 100) builder.append('0');
+        if (fraction < 10) builder.append('0');
+        return builder.append(fraction).toString();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return ((exponent - SUB_BITS) << SUB_BITS) + (int) (value >>> (exponent - SUB_BITS));
+    }
+
+    /**
+     * The middle of the range of values the bucket holds
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < SUB_COUNT * 2) return bucket;
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long lowest = (long) (SUB_COUNT + (bucket & (SUB_COUNT - 1))) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    public static final class Stats {
+        private final long count, mean, p50, p95, p99, max;
+
+        private Stats(long count, long mean, long p50, long p95, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /** In nanoseconds */
+        public long getMean() {
+            return mean;
+        }
+
+        /** In nanoseconds */
+        public long getP50() {
+            return p50;
+        }
+
+        /** In nanoseconds */
+        public long getP95() {
+            return p95;
+        }
+
+        /** In nanoseconds */
+        public long getP99() {
+            return p99;
+        }
+
+        /** In nanoseconds */
+        public long getMax() {
+            return max;
+        }
+
+        public String toString() {
+            return "Stats [count=" + count + ", p50=" + formatMillis(p50) + "ms, p95=" + formatMillis(p95)
+                    + "ms, p99=" + formatMillis(p99) + "ms, max=" + formatMillis(max) + "ms]";
+        }
+    }
+
+    /**
+     * The histograms of one thread. Only the owning thread writes to it, other threads only read.
+     */
+    private static final class Buffer {
+        // Weak so the buffer does not keep a stopped thread around
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private final Map<String, Histogram> histograms = new HashMap<>();
+        // Replaced whenever a label is added, so other threads can read the labels safely
+        private volatile Map.Entry<String, Histogram>[] published = newArray(0);
+        private volatile int epoch = Profiler.epoch;
+
+        private void record(String label, long nanos) {
+            int current = Profiler.epoch;
+            if (epoch != current) {
+                histograms.clear();
+                published = newArray(0);
+                epoch = current;
+            }
+
+            Histogram histogram = histograms.get(label);
+            if (histogram == null) {
+                histogram = new Histogram();
+                histograms.put(label, histogram);
+                published = histograms.entrySet().toArray(newArray(histograms.size()));
+            }
+            histogram.record(nanos);
+        }
+
+        private Map.Entry<String, Histogram>[] entries() {
+            return published;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map.Entry<String, Histogram>[] newArray(int size) {
+            return (Map.Entry<String, Histogram>[]) new Map.Entry[size];
+        }
+    }
+
+    private static final class Histogram {
+        private final long[] counts = new long[BUCKETS];
+        private long sum = 0;
+        private long max = 0;
+        // Written last, so reading it first makes the rest visible
+        private volatile long count = 0;
+
+        private void record(long nanos) {
+            counts[bucketOf(nanos)]++;
+            sum += nanos;
+            if (nanos > max) max = nanos;
+            count = count + 1;
+        }
+
+        private void add(Histogram other) {
+            long otherCount = other.count;
+            for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+            sum += other.sum;
+            max = Math.max(max, other.max);
+            count += otherCount;
+        }
+
+        private Stats toStats() {
+            // Counts were read while other threads could be writing, so the buckets are used as the total
+            long total = 0;
+            for (long bucket : counts) total += bucket;
+            if (total == 0) return new Stats(0, 0, 0, 0, 0, 0);
+            return new Stats(total, sum / total, percentile(total, 0.50), percentile(total, 0.95), percentile(total, 0.99), max);
+        }
+
+        private long percentile(long total, double percentile) {
+            long target = Math.max(1, (long) Math.ceil(total * percentile));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(valueOf(i), max);
+            }
+            return max;
+        }
+    }
+}
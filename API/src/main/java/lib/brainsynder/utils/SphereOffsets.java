@@ -0,0 +1,220 @@
+package lib.brainsynder.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+/**
+ * The block offsets inside a sphere (or disc when ignoring height), worked out once per
+ * (radius, hollow, ignoreHeight) and shared. Recently used tables are cached, up to
+ * {@link #MAX_CACHED_OFFSETS} offsets in total.
+ *
+ * <p>The offsets are in the same order {@link Utilities#getBlocksInRadius(Location, int, boolean, boolean)}
+ * has always returned the blocks in (X, then Y, then Z).</p>
+ *
+ * <pre>
+ * SphereOffsets.of(8, false, false).forEach(x, y, z, (bx, by, bz) -> ...);
+ * </pre>
+ */
+public final class SphereOffsets {
+    public static final int MAX_CACHED_OFFSETS = 2_000_000;
+
+    private static final Map<Long, SphereOffsets> CACHE = new LinkedHashMap<>(16, 0.75F, true);
+    private static long cachedOffsets = 0;
+
+    private final int radius;
+    private final boolean hollow;
+    private final boolean ignoreHeight;
+    private final short[] xs, ys, zs;
+
+    private SphereOffsets(int radius, boolean hollow, boolean ignoreHeight) {
+        this.radius = radius;
+        this.hollow = hollow;
+        this.ignoreHeight = ignoreHeight;
+
+        // Counted first so the arrays are the exact size
+        int size = walk(radius, hollow, ignoreHeight, null, null, null);
+        this.xs = new short[size];
+        this.ys = new short[size];
+        this.zs = new short[size];
+        walk(radius, hollow, ignoreHeight, xs, ys, zs);
+    }
+
+    /**
+     * Finds the offsets inside the sphere, storing them if the arrays are not null
+     *
+     * @return The amount of offsets
+     */
+    private static int walk(int radius, boolean hollow, boolean ignoreHeight, short[] xs, short[] ys, short[] zs) {
+        int height = ignoreHeight ? 0 : radius;
+        long outer = (long) radius * radius;
+        long inner = (long) (radius - 1) * (radius - 1);
+
+        int index = 0;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -height; y <= height; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    long distance = (long) x * x + (long) y * y + (long) z * z;
+                    if ((distance >= outer) || (hollow && (distance < inner))) continue;
+                    if (xs != null) {
+                        xs[index] = (short) x;
+                        ys[index] = (short) y;
+                        zs[index] = (short) z;
+                    }
+                    index++;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the offset table, building it if it is not cached
+     *
+     * @param radius       Radius of the sphere (blocks at exactly this distance are not included)
+     * @param hollow       Only include the outer layer
+     * @param ignoreHeight Only include the blocks at the same Y level (a disc)
+     */
+    public static SphereOffsets of(int radius, boolean hollow, boolean ignoreHeight) {
+        if (radius > Short.MAX_VALUE) throw new IllegalArgumentException("Radius can not be more than " + Short.MAX_VALUE);
+        long key = ((long) radius << 2) | (hollow ? 2 : 0) | (ignoreHeight ? 1 : 0);
+
+        synchronized (CACHE) {
+            SphereOffsets offsets = CACHE.get(key);
+            if (offsets != null) return offsets;
+        }
+
+        SphereOffsets offsets = new SphereOffsets(Math.max(radius, 0), hollow, ignoreHeight);
+        if (offsets.size() > MAX_CACHED_OFFSETS) return offsets;
+
+        synchronized (CACHE) {
+            SphereOffsets cached = CACHE.putIfAbsent(key, offsets);
+            if (cached != null) return cached;
+            cachedOffsets += offsets.size();
+
+            // Drops the least recently used tables until it is back under the limit
+            Iterator<SphereOffsets> iterator = CACHE.values().iterator();
+            while ((cachedOffsets > MAX_CACHED_OFFSETS) && iterator.hasNext()) {
+                SphereOffsets oldest = iterator.next();
+                if (oldest == offsets) continue;
+                cachedOffsets -= oldest.size();
+                iterator.remove();
+            }
+        }
+        return offsets;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public boolean isHollow() {
+        return hollow;
+    }
+
+    public boolean isIgnoringHeight() {
+        return ignoreHeight;
+    }
+
+    /**
+     * The amount of positions in the table
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * Visits every position around the center
+     */
+    public void forEach(int centerX, int centerY, int centerZ, PositionVisitor visitor) {
+        for (int i = 0; i < xs.length; i++) {
+            visitor.visit(centerX + xs[i], centerY + ys[i], centerZ + zs[i]);
+        }
+    }
+
+    /**
+     * Visits every position around the center, packed with {@link #pack(int, int, int)}
+     */
+    public void forEachPacked(int centerX, int centerY, int centerZ, LongConsumer consumer) {
+        for (int i = 0; i < xs.length; i++) {
+            consumer.accept(pack(centerX + xs[i], centerY + ys[i], centerZ + zs[i]));
+        }
+    }
+
+    /**
+     * Takes snapshots of the chunks the sphere covers (has to be called on the main thread),
+     * then visits every position on another thread. Positions outside the worlds height are skipped.
+     */
+    public CompletableFuture<Void> scanAsync(Location center, CuboidScan.BlockVisitor visitor) {
+        World world = center.getWorld();
+        int centerX = center.getBlockX(), centerY = center.getBlockY(), centerZ = center.getBlockZ();
+        int minY = 0;
+        try {
+            minY = world.getMinHeight();
+        } catch (NoSuchMethodError ignored) {
+            // Pre 1.17 worlds always start at 0
+        }
+        int maxY = world.getMaxHeight() - 1;
+
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        for (int chunkX = (centerX - radius) >> 4; chunkX <= ((centerX + radius) >> 4); chunkX++) {
+            for (int chunkZ = (centerZ - radius) >> 4; chunkZ <= ((centerZ + radius) >> 4); chunkZ++) {
+                snapshots.put(chunkKey(chunkX, chunkZ), world.getChunkAt(chunkX, chunkZ).getChunkSnapshot());
+            }
+        }
+
+        int lowestY = minY;
+        return CompletableFuture.runAsync(() -> {
+            ChunkSnapshot chunk = null;
+            long lastKey = 0;
+            for (int i = 0; i < xs.length; i++) {
+                int x = centerX + xs[i], y = centerY + ys[i], z = centerZ + zs[i];
+                if ((y < lowestY) || (y > maxY)) continue;
+
+                // Neighbouring offsets are almost always in the same chunk
+                long key = chunkKey(x >> 4, z >> 4);
+                if ((chunk == null) || (key != lastKey)) {
+                    chunk = snapshots.get(key);
+                    lastKey = key;
+                }
+                Material type = chunk.getBlockType(x & 15, y, z & 15);
+                visitor.visit(x, y, z, type, chunk);
+            }
+        });
+    }
+
+    /**
+     * Packs a block position into a long (26 bits X, 26 bits Z, 12 bits Y)
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public interface PositionVisitor {
+        void visit(int x, int y, int z);
+    }
+}
@@ -3,19 +3,24 @@ package lib.brainsynder.utils;
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.*;
 
+/**
+ * Times the steps of a task. Each instance should only be used by one thread at a time,
+ * but different instances can be used from any thread.
+ *
+ * The durations are also recorded in the {@link Profiler} (when it is enabled).
+ */
 public class TaskTimer {
-    private static final LinkedHashMap<String, JsonArray> STORAGE = new LinkedHashMap<>();
-    private static final LinkedHashMap<String, LinkedList<Record>> STORED_TIME = new LinkedHashMap<>();
+    private static final Map<String, JsonArray> STORAGE = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, LinkedList<Record>> STORED_TIME = Collections.synchronizedMap(new LinkedHashMap<>());
 
     /**
      * This is the targeted class name (will also include any additional text specified in the other constructor)
      */
     private final String CLASS_NAME;
     private String previousName = "";
+    private LinkedList<Record> records = new LinkedList<>();
 
     /**
      * Initiates the timer for the instance
@@ -37,7 +42,7 @@ public class TaskTimer {
         if (instance instanceof Class) clazz = (Class<?>) instance;
 
         CLASS_NAME = clazz.getSimpleName()+(addition.isEmpty() ? "" : " - "+addition);
-        STORED_TIME.put(CLASS_NAME, new LinkedList<>());
+        STORED_TIME.put(CLASS_NAME, records);
     }
 
     /**
@@ -55,13 +60,11 @@ public class TaskTimer {
      * @param name Name of the task that ran
      */
     public void label (String name) {
-        LinkedList<Record> records = STORED_TIME.get(CLASS_NAME);
         if (records.isEmpty() && !name.equals("start")) // Ensures that the task was actually started
             throw new RuntimeException("The TaskTimer instance for '"+CLASS_NAME+"' was not started please run the TaskTimer#start() method first");
 
         this.previousName = name;
         records.addLast(new Record(name, System.nanoTime()));
-        STORED_TIME.put(CLASS_NAME, records);
     }
 
     /**
@@ -71,7 +74,8 @@ public class TaskTimer {
      */
     public void clearTaskTimer () {
         STORAGE.remove(CLASS_NAME);
-        STORED_TIME.put(CLASS_NAME, new LinkedList<>());
+        records = new LinkedList<>();
+        STORED_TIME.put(CLASS_NAME, records);
     }
 
     /**
@@ -99,8 +103,6 @@ public class TaskTimer {
 
         label(label);
         JsonArray array = new JsonArray();
-        LinkedList<Record> records = STORED_TIME.get(CLASS_NAME);
-        DecimalFormat decimalFormat = new DecimalFormat("#0.000", DecimalFormatSymbols.getInstance(Locale.US));
         long previous = 0;
 
         while (records.peekFirst() != null) {
@@ -109,13 +111,13 @@ public class TaskTimer {
                 previous = record.time;
                 continue;
             }
-            long stored = record.time;
-            double duration = (stored - previous) / 1000000.0;
+            long nanos = record.time - previous;
+            if (Profiler.isEnabled()) Profiler.recordNanos(CLASS_NAME + " - " + record.label, nanos);
 
             JsonObject value = new JsonObject();
             value.add("name", record.label);
-            value.add("duration", duration);
-            value.add("formatted", decimalFormat.format(duration)+"ms");
+            value.add("duration", nanos / 1000000.0);
+            value.add("formatted", Profiler.formatMillis(nanos)+"ms");
             array.add(value);
         }
 
@@ -130,10 +132,12 @@ public class TaskTimer {
         JsonObject json = new JsonObject();
 
         List<String> unfinished = new ArrayList<>();
-        STORAGE.forEach(json::add);
+        synchronized (STORAGE) {
+            STORAGE.forEach(json::add);
+        }
 
         // Checks if there are any timers that have not finished
-        if (STORAGE.size() != STORED_TIME.size()) {
+        synchronized (STORED_TIME) {
             STORED_TIME.forEach((s, records) -> {
                 if (!STORAGE.containsKey(s)) unfinished.add(s);
             });
@@ -145,6 +149,9 @@ public class TaskTimer {
             unfinished.forEach(array::add);
             json.add("unfinished-timers", array);
         }
+
+        JsonObject profiler = Profiler.toJson();
+        if (!profiler.isEmpty()) json.add("profiler", profiler);
         return json;
     }
 
@@ -86,38 +86,14 @@ public class Utilities {
     }
 
     public static List<Block> getBlocksInRadius(Location location, int radius, boolean hollow, boolean ignoreHeight, Predicate<Block> blockPredicate) {
-        List<Block> blocks = new ArrayList<>();
-
-        int bX = location.getBlockX();
-        int bY = location.getBlockY();
-        int bZ = location.getBlockZ();
-
-        if (ignoreHeight) {
-            for (int x = bX - radius; x <= bX + radius; x++) {
-                for (int z = bZ - radius; z <= bZ + radius; z++) {
-                    double distance = (bX - x) * (bX - x) + (bZ - z) * (bZ - z);
-                    if ((distance < radius * radius) && ((!hollow) || (distance >= (radius - 1) * (radius - 1)))) {
-                        Location loc = new Location(location.getWorld(), x, bY, z);
-
-                        if (blockPredicate.test(loc.getBlock())) blocks.add(loc.getBlock());
-                    }
-                }
-            }
-            return blocks;
-        }
-
-        for (int x = bX - radius; x <= bX + radius; x++) {
-            for (int y = bY - radius; y <= bY + radius; y++) {
-                for (int z = bZ - radius; z <= bZ + radius; z++) {
-                    double distance = (bX - x) * (bX - x) + (bY - y) * (bY - y) + (bZ - z) * (bZ - z);
-                    if ((distance < radius * radius) && ((!hollow) || (distance >= (radius - 1) * (radius - 1)))) {
-                        Location loc = new Location(location.getWorld(), x, y, z);
-
-                        if (blockPredicate.test(loc.getBlock())) blocks.add(loc.getBlock());
-                    }
-                }
-            }
-        }
+        SphereOffsets offsets = SphereOffsets.of(radius, hollow, ignoreHeight);
+        List<Block> blocks = new ArrayList<>(offsets.size());
+        World world = location.getWorld();
+
+        offsets.forEach(location.getBlockX(), location.getBlockY(), location.getBlockZ(), (x, y, z) -> {
+            Block block = world.getBlockAt(x, y, z);
+            if (blockPredicate.test(block)) blocks.add(block);
+        });
         return blocks;
     }
 
@@ -1,13 +1,5 @@
 package lib.brainsynder.web;
 
-import com.eclipsesource.json.JsonObject;
-
-import javax.net.ssl.HttpsURLConnection;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.net.URL;
-import java.util.concurrent.CompletableFuture;
-
 public class DiscordHook {
 	private final String webhook;
 	private String content;
@@ -30,29 +22,10 @@ public class DiscordHook {
 		this.avatarUrl = avatarUrl;
 	}
 
+	/**
+	 * Queues the message, it is sent in the background by the webhooks {@link WebhookDispatcher}
+	 */
 	public void send() {
-		JsonObject json = new JsonObject();
-		json.add("content", this.content);
-		json.add("username", this.username);
-		json.add("avatar_url", this.avatarUrl);
-		CompletableFuture.runAsync(() -> {
-			try {
-				URL url = new URL(webhook);
-				HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-				connection.addRequestProperty("Content-Type", "application/json");
-				connection.addRequestProperty("User-Agent", "BSLib");
-				connection.setDoOutput(true);
-				connection.setRequestMethod("POST");
-
-				OutputStream stream = connection.getOutputStream();
-				stream.write(json.toString().getBytes());
-				stream.flush();
-				stream.close();
-
-				connection.getInputStream().close();
-				connection.disconnect();
-			}catch(IOException e) {}
-		});
+		WebhookDispatcher.of(webhook).queue(this.content, this.username, this.avatarUrl);
 	}
 }
-
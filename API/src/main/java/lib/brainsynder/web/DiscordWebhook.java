@@ -69,90 +69,127 @@ public class DiscordWebhook {
             List<JSONObject> embedObjects = new ArrayList<>();
 
             for (EmbedObject embed : this.embeds) {
-                JSONObject jsonEmbed = new JSONObject();
+                embedObjects.add(toJSONObject(embed));
+            }
 
-                jsonEmbed.put("title", embed.getTitle());
-                jsonEmbed.put("description", embed.getDescription());
-                jsonEmbed.put("url", embed.getUrl());
+            json.put("embeds", embedObjects.toArray());
+        }
 
-                if (embed.getColor() != null) {
-                    Color color = embed.getColor();
-                    int rgb = color.getRed();
-                    rgb = (rgb << 8) + color.getGreen();
-                    rgb = (rgb << 8) + color.getBlue();
+        URL url = new URL(this.url);
+        HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
+        connection.addRequestProperty("Content-Type", "application/json");
+        connection.addRequestProperty("User-Agent", "DiscordWebhook");
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
 
-                    jsonEmbed.put("color", rgb);
-                }
+        OutputStream stream = connection.getOutputStream();
+        stream.write(json.toString().getBytes());
+        stream.flush();
+        stream.close();
 
-                EmbedObject.Footer footer = embed.getFooter();
-                EmbedObject.Image image = embed.getImage();
-                EmbedObject.Thumbnail thumbnail = embed.getThumbnail();
-                EmbedObject.Author author = embed.getAuthor();
-                List<EmbedObject.Field> fields = embed.getFields();
+        connection.getInputStream().close(); //I'm not sure why but it doesn't work without getting the InputStream
+        connection.disconnect();
+    }
 
-                if (footer != null) {
-                    JSONObject jsonFooter = new JSONObject();
+    /**
+     * Queues the webhook to be sent in the background, see {@link WebhookDispatcher}
+     *
+     * @return false if the queue was full and the message was dropped
+     */
+    public boolean queue() {
+        return WebhookDispatcher.of(this.url).queue(this);
+    }
 
-                    jsonFooter.put("text", footer.getText());
-                    jsonFooter.put("icon_url", footer.getIconUrl());
-                    jsonEmbed.put("footer", jsonFooter);
-                }
+    String getContent() {
+        return content;
+    }
 
-                if (image != null) {
-                    JSONObject jsonImage = new JSONObject();
+    String getUsername() {
+        return username;
+    }
 
-                    jsonImage.put("url", image.getUrl());
-                    jsonEmbed.put("image", jsonImage);
-                }
+    String getAvatarUrl() {
+        return avatarUrl;
+    }
 
-                if (thumbnail != null) {
-                    JSONObject jsonThumbnail = new JSONObject();
+    boolean isTts() {
+        return tts;
+    }
 
-                    jsonThumbnail.put("url", thumbnail.getUrl());
-                    jsonEmbed.put("thumbnail", jsonThumbnail);
-                }
+    List<EmbedObject> getEmbeds() {
+        return embeds;
+    }
 
-                if (author != null) {
-                    JSONObject jsonAuthor = new JSONObject();
+    String toJson(EmbedObject embed) {
+        return toJSONObject(embed).toString();
+    }
 
-                    jsonAuthor.put("name", author.getName());
-                    jsonAuthor.put("url", author.getUrl());
-                    jsonAuthor.put("icon_url", author.getIconUrl());
-                    jsonEmbed.put("author", jsonAuthor);
-                }
+    private JSONObject toJSONObject(EmbedObject embed) {
+        JSONObject jsonEmbed = new JSONObject();
 
-                List<JSONObject> jsonFields = new ArrayList<>();
-                for (EmbedObject.Field field : fields) {
-                    JSONObject jsonField = new JSONObject();
+        jsonEmbed.put("title", embed.getTitle());
+        jsonEmbed.put("description", embed.getDescription());
+        jsonEmbed.put("url", embed.getUrl());
 
-                    jsonField.put("name", field.getName());
-                    jsonField.put("value", field.getValue());
-                    jsonField.put("inline", field.isInline());
+        if (embed.getColor() != null) {
+            Color color = embed.getColor();
+            int rgb = color.getRed();
+            rgb = (rgb << 8) + color.getGreen();
+            rgb = (rgb << 8) + color.getBlue();
 
-                    jsonFields.add(jsonField);
-                }
+            jsonEmbed.put("color", rgb);
+        }
 
-                jsonEmbed.put("fields", jsonFields.toArray());
-                embedObjects.add(jsonEmbed);
-            }
+        EmbedObject.Footer footer = embed.getFooter();
+        EmbedObject.Image image = embed.getImage();
+        EmbedObject.Thumbnail thumbnail = embed.getThumbnail();
+        EmbedObject.Author author = embed.getAuthor();
+        List<EmbedObject.Field> fields = embed.getFields();
 
-            json.put("embeds", embedObjects.toArray());
+        if (footer != null) {
+            JSONObject jsonFooter = new JSONObject();
+
+            jsonFooter.put("text", footer.getText());
+            jsonFooter.put("icon_url", footer.getIconUrl());
+            jsonEmbed.put("footer", jsonFooter);
         }
 
-        URL url = new URL(this.url);
-        HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-        connection.addRequestProperty("Content-Type", "application/json");
-        connection.addRequestProperty("User-Agent", "DiscordWebhook");
-        connection.setDoOutput(true);
-        connection.setRequestMethod("POST");
+        if (image != null) {
+            JSONObject jsonImage = new JSONObject();
 
-        OutputStream stream = connection.getOutputStream();
-        stream.write(json.toString().getBytes());
-        stream.flush();
-        stream.close();
+            jsonImage.put("url", image.getUrl());
+            jsonEmbed.put("image", jsonImage);
+        }
 
-        connection.getInputStream().close(); //I'm not sure why but it doesn't work without getting the InputStream
-        connection.disconnect();
+        if (thumbnail != null) {
+            JSONObject jsonThumbnail = new JSONObject();
+
+            jsonThumbnail.put("url", thumbnail.getUrl());
+            jsonEmbed.put("thumbnail", jsonThumbnail);
+        }
+
+        if (author != null) {
+            JSONObject jsonAuthor = new JSONObject();
+
+            jsonAuthor.put("name", author.getName());
+            jsonAuthor.put("url", author.getUrl());
+            jsonAuthor.put("icon_url", author.getIconUrl());
+            jsonEmbed.put("author", jsonAuthor);
+        }
+
+        List<JSONObject> jsonFields = new ArrayList<>();
+        for (EmbedObject.Field field : fields) {
+            JSONObject jsonField = new JSONObject();
+
+            jsonField.put("name", field.getName());
+            jsonField.put("value", field.getValue());
+            jsonField.put("inline", field.isInline());
+
+            jsonFields.add(jsonField);
+        }
+
+        jsonEmbed.put("fields", jsonFields.toArray());
+        return jsonEmbed;
     }
 
     public static class EmbedObject {
@@ -384,7 +421,32 @@ public class DiscordWebhook {
         }
 
         private String quote(String string) {
-            return "\"" + string + "\"";
+            StringBuilder builder = new StringBuilder(string.length() + 2).append('"');
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                switch (c) {
+                    case '"':
+                    case '\\':
+                        builder.append('\\').append(c);
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < ' ') {
+                            builder.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            builder.append(c);
+                        }
+                }
+            }
+            return builder.append('"').toString();
         }
     }
 
@@ -0,0 +1,318 @@
+package lib.brainsynder.web;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs HTTP requests on its own small pool of threads instead of the JVM wide common pool.
+ *
+ * <p>Each host only gets a few requests at a time, the rest wait in a queue. Once
+ * {@link #getMaxQueued()} requests are waiting, new ones fail straight away with a
+ * {@link RejectedExecutionException} instead of piling up. Responses are always read fully and
+ * closed, so the JVM can reuse the connection (keep-alive) for the next request to that host.</p>
+ *
+ * <p>The returned futures complete on an engine thread. Use {@link #sync(Plugin, CompletableFuture)}
+ * to get the result on the main thread.</p>
+ *
+ * <pre>
+ * WebConnector.getEngine().getString(url).thenAcceptAsync(body -> ..., HttpEngine.mainThread(plugin));
+ * </pre>
+ */
+public class HttpEngine {
+    private final ThreadPoolExecutor executor;
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    private final int maxPerHost;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile int connectTimeout = 10000;
+    private volatile int readTimeout = 10000;
+    private volatile String userAgent = "Mozilla/5.0";
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public HttpEngine() {
+        this(4, 2, 256);
+    }
+
+    /**
+     * @param threads    The most requests running at once
+     * @param maxPerHost The most requests running at once to the same host
+     * @param maxQueued  The most requests waiting to run, any more are rejected
+     */
+    public HttpEngine(int threads, int maxPerHost, int maxQueued) {
+        if ((threads < 1) || (maxPerHost < 1) || (maxQueued < 0))
+            throw new IllegalArgumentException("threads and maxPerHost have to be at least 1, maxQueued can not be negative");
+        this.maxPerHost = maxPerHost;
+        this.maxQueued = maxQueued;
+
+        AtomicInteger count = new AtomicInteger();
+        // Requests are only handed over once they can run, so this queue never holds more than the waiting host slots
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "BSLib-Http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void setConnectTimeout(int connectTimeout, TimeUnit unit) {
+        this.connectTimeout = (int) unit.toMillis(connectTimeout);
+    }
+
+    public void setReadTimeout(int readTimeout, TimeUnit unit) {
+        this.readTimeout = (int) unit.toMillis(readTimeout);
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * GETs the link and reads the response as a UTF-8 string
+     */
+    public CompletableFuture<String> getString(String link) {
+        return getBytes(link).thenApply(bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * GETs the link and reads the whole response
+     */
+    public CompletableFuture<byte[]> getBytes(String link) {
+        return request(link, connection -> readBody(connection));
+    }
+
+    /**
+     * POSTs the body to the link and reads the response as a UTF-8 string
+     */
+    public CompletableFuture<String> post(String link, String contentType, byte[] body) {
+        return request(link, connection -> {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream stream = connection.getOutputStream()) {
+                stream.write(body);
+            }
+            return new String(readBody(connection), StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * Queues a request to the link. The handler gets the connection before it is connected, so it can
+     * set the method/headers, and should read the whole response so the connection can be reused.
+     *
+     * @return A future that completes with what the handler returned, or exceptionally if it threw
+     */
+    public <T> CompletableFuture<T> request(String link, ConnectionHandler<T> handler) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        URL url;
+        try {
+            url = new URL(link);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        Runnable task = () -> {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) url.openConnection();
+                connection.setRequestProperty("User-Agent", userAgent);
+                connection.setConnectTimeout(connectTimeout);
+                connection.setReadTimeout(readTimeout);
+                T result = handler.handle(connection);
+                completed.incrementAndGet();
+                future.complete(result);
+            } catch (Throwable throwable) {
+                failed.incrementAndGet();
+                // Reads whatever is left of an error response so the connection can still be reused
+                if (connection != null) drainError(connection);
+                future.completeExceptionally(throwable);
+            }
+        };
+        enqueue(url.getHost().toLowerCase(Locale.ROOT), task, future);
+        return future;
+    }
+
+    /**
+     * The amount of requests waiting to run
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * The amount of requests running right now
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * The amount of requests that were rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops the engine, requests that have not started yet are failed
+     */
+    public void shutdown() {
+        synchronized (hosts) {
+            executor.shutdown();
+            for (HostQueue host : hosts.values()) {
+                for (Pending pending : host.pending) {
+                    pending.future.completeExceptionally(new RejectedExecutionException("HttpEngine was shut down"));
+                }
+                queued.addAndGet(-host.pending.size());
+                host.pending.clear();
+            }
+        }
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Runs tasks on the plugins main thread
+     */
+    public static Executor mainThread(Plugin plugin) {
+        return runnable -> {
+            if (Bukkit.isPrimaryThread()) {
+                runnable.run();
+            } else {
+                Bukkit.getScheduler().runTask(plugin, runnable);
+            }
+        };
+    }
+
+    /**
+     * Gets a future that completes on the main thread with the same result
+     */
+    public static <T> CompletableFuture<T> sync(Plugin plugin, CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenCompleteAsync((value, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        }, mainThread(plugin));
+        return result;
+    }
+
+    private void enqueue(String host, Runnable task, CompletableFuture<?> future) {
+        synchronized (hosts) {
+            if (executor.isShutdown()) {
+                rejected.incrementAndGet();
+                future.completeExceptionally(new RejectedExecutionException("HttpEngine was shut down"));
+                return;
+            }
+            HostQueue queue = hosts.computeIfAbsent(host, key -> new HostQueue());
+            if (queue.active < maxPerHost) {
+                queue.active++;
+                submit(host, queue, task);
+                return;
+            }
+            if (queued.get() >= maxQueued) {
+                rejected.incrementAndGet();
+                future.completeExceptionally(new RejectedExecutionException("Too many HTTP requests are queued (" + maxQueued + ")"));
+                return;
+            }
+            queued.incrementAndGet();
+            queue.pending.add(new Pending(task, future));
+        }
+    }
+
+    // Called while holding the hosts lock
+    private void submit(String host, HostQueue queue, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                next(host, queue);
+            }
+        });
+    }
+
+    private void next(String host, HostQueue queue) {
+        synchronized (hosts) {
+            Pending pending = queue.pending.poll();
+            if ((pending == null) || executor.isShutdown()) {
+                queue.active--;
+                if ((queue.active == 0) && queue.pending.isEmpty()) hosts.remove(host);
+                return;
+            }
+            queued.decrementAndGet();
+            submit(host, queue, pending.task);
+        }
+    }
+
+    private static byte[] readBody(HttpURLConnection connection) throws IOException {
+        try (InputStream stream = connection.getInputStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(connection.getContentLength(), 32));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    private static void drainError(HttpURLConnection connection) {
+        try (InputStream stream = connection.getErrorStream()) {
+            if (stream == null) return;
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) ;
+        } catch (IOException ignored) {}
+    }
+
+    public interface ConnectionHandler<T> {
+        T handle(HttpURLConnection connection) throws IOException;
+    }
+
+    private static final class HostQueue {
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private int active = 0;
+    }
+
+    private static final class Pending {
+        private final Runnable task;
+        private final CompletableFuture<?> future;
+
+        private Pending(Runnable task, CompletableFuture<?> future) {
+            this.task = task;
+            this.future = future;
+        }
+    }
+}
@@ -3,18 +3,46 @@ package lib.brainsynder.web;
 import com.eclipsesource.json.Json;
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
-import lib.brainsynder.storage.ExpireHashMap;
+import lib.brainsynder.files.StorageFile;
+import lib.brainsynder.nbt.StorageTagCompound;
+import lib.brainsynder.storage.ConcurrentCache;
 import lib.brainsynder.utils.Base64Wrapper;
 import lib.brainsynder.utils.ReturnValue;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Looks up player profiles (skin textures and name history).
+ *
+ * <p>Profiles are cached for 10 minutes, and lookups that fail are remembered for 1 minute so
+ * they are not retried on every call. If several lookups for the same player happen at once,
+ * only one request is sent and they all get its result. With {@link #setDiskCache(StorageFile)}
+ * profiles are also kept on disk for a day, so they do not all have to be fetched again after a restart.
+ * The disk cache is saved at most once every 5 seconds, without the profiles that are over a day old.</p>
+ */
 public class PlayerData {
-    private static final ExpireHashMap<String, JsonObject> cache = new ExpireHashMap<>();
+    private static final long DISK_EXPIRE = TimeUnit.DAYS.toMillis(1);
+
+    private static final ConcurrentCache<String, JsonObject> cache = new ConcurrentCache<>(5000, 10, TimeUnit.MINUTES);
+    private static final ConcurrentCache<String, Throwable> failures = new ConcurrentCache<>(1000, 1, TimeUnit.MINUTES);
+    private static volatile String profileURL = "https://v4.minecraftchar.us/profile.php?user=";
+    private static volatile StorageFile diskCache = null;
+    private static final AtomicBoolean diskSaveScheduled = new AtomicBoolean(false);
+    private static ScheduledExecutorService diskSaver = null;
     private final static String rawTexture = "http://textures.minecraft.net/texture/456eec1c2169c8c60a7ae436abcd2dc5417d56f8adef84f11343dc1188fe138";
     private final static String steveTexture = Base64Wrapper.encodeString("{'textures':{'SKIN':{'url':'"+rawTexture+"'}}}");
 
@@ -57,29 +85,130 @@ public class PlayerData {
     }
 
     public static void findProfile(String search, Plugin plugin, ReturnValue<JsonObject> returnValue, ReturnValue<Throwable> onFailure) {
-        if (cache.containsKey(search)) {
-            returnValue.run(cache.get(search));
+        // Names are not case sensitive, so "Notch" and "notch" share the same entry
+        String key = search.toLowerCase(Locale.ROOT);
+        JsonObject cached = cache.getIfPresent(key);
+        if (cached != null) {
+            returnValue.run(cached);
             return;
         }
 
-        WebConnector.getInputStreamString("https://v4.minecraftchar.us/profile.php?user=" + search, plugin, value -> {
-            JsonObject profile = new JsonObject();
-            try {
+        Throwable failure = failures.getIfPresent(key);
+        if (failure != null) {
+            onFailure.run(failure);
+            return;
+        }
+
+        cache.getAsync(key, PlayerData::loadProfile).whenComplete((profile, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+                failures.put(key, cause);
+                sync(plugin, () -> onFailure.run(cause));
+                return;
+            }
+            sync(plugin, () -> returnValue.run(profile));
+        });
+    }
+
+    /**
+     * Keeps fetched profiles in this file as well, and uses them for up to a day before fetching them again
+     *
+     * @param file The file to use, or null to stop using one
+     */
+    public static void setDiskCache(StorageFile file) {
+        saveDiskCache();
+        diskCache = file;
+    }
+
+    /**
+     * Saves the profiles that are waiting to be written to the disk cache now (EG: when the plugin disables)
+     */
+    public static void saveDiskCache() {
+        diskSaveScheduled.set(false);
+        StorageFile file = diskCache;
+        if (file == null) return;
+        synchronized (file) {
+            // Profiles that are too old would be fetched again anyway
+            long now = System.currentTimeMillis();
+            for (String key : new ArrayList<>(file.getKeySet())) {
+                if ((now - file.getCompoundTag(key).getLong("fetched", 0)) > DISK_EXPIRE) file.remove(key);
+            }
+            file.save();
+        }
+    }
+
+    /**
+     * Changes where profiles are fetched from (the name is added to the end of the url)
+     */
+    public static void setProfileURL(String url) {
+        profileURL = url;
+    }
+
+    /**
+     * Forgets every cached profile and failed lookup (not the ones in the disk cache)
+     */
+    public static void clearCache() {
+        cache.invalidateAll();
+        failures.invalidateAll();
+    }
+
+    private static CompletableFuture<JsonObject> loadProfile(String key) {
+        JsonObject stored = readDisk(key);
+        if (stored != null) return CompletableFuture.completedFuture(stored);
+
+        try {
+            return WebConnector.getEngine().getString(profileURL + URLEncoder.encode(key, "UTF-8")).thenApply(value -> {
+                JsonObject profile = new JsonObject();
                 JsonObject main = (JsonObject) Json.parse(value);
                 if (!main.isEmpty()) {
-                    if (main.names().contains("error")) throw new Exception("Could not fetch profile data of " + search);
+                    if (main.names().contains("error")) throw new CompletionException(new IOException("Could not fetch profile data of " + key));
                     profile.merge(main);
                 }
+                writeDisk(key, profile);
+                return profile;
+            });
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                sync(plugin, () -> {
-                    // Cache the data for 10 minutes
-                    cache.put(search, profile, 10, TimeUnit.MINUTES);
-                    returnValue.run(profile);
-                });
+    private static JsonObject readDisk(String key) {
+        StorageFile file = diskCache;
+        if (file == null) return null;
+        synchronized (file) {
+            if (!file.hasKey(key)) return null;
+            StorageTagCompound compound = file.getCompoundTag(key);
+            if ((System.currentTimeMillis() - compound.getLong("fetched", 0)) > DISK_EXPIRE) return null;
+            try {
+                return Json.parse(compound.getString("profile", "{}")).asObject();
             } catch (Exception e) {
-                sync(plugin, () -> onFailure.run(e));
+                return null;
             }
-        });
+        }
+    }
+
+    private static void writeDisk(String key, JsonObject profile) {
+        StorageFile file = diskCache;
+        if (file == null) return;
+        StorageTagCompound compound = new StorageTagCompound();
+        compound.setString("profile", profile.toString());
+        compound.setLong("fetched", System.currentTimeMillis());
+        synchronized (file) {
+            file.setTag(key, compound);
+        }
+        // One save for all the profiles fetched within the next few seconds
+        if (!diskSaveScheduled.getAndSet(true)) getDiskSaver().schedule(PlayerData::saveDiskCache, 5, TimeUnit.SECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService getDiskSaver() {
+        if (diskSaver == null) {
+            diskSaver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "BSLib-PlayerData");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return diskSaver;
     }
 
     private static void sync (Plugin plugin, Runnable runnable) {
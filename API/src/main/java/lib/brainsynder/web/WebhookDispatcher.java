@@ -0,0 +1,417 @@
+package lib.brainsynder.web;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import lib.brainsynder.apache.ApacheUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends Discord webhook messages in the background, one webhook at a time.
+ *
+ * <p>Messages are queued and sent in order. Messages next to each other that use the same
+ * username/avatar are merged into one request, up to Discord's limits (2000 characters of content,
+ * 10 embeds). Requests are spaced out with a token bucket, which follows the rate limit
+ * headers Discord sends back. A 429 waits for its {@code Retry-After} and is sent again, as often as it
+ * takes (it does not use up a retry, the request did not fail). Other failures are retried with an
+ * increasing delay, then dropped. While Discord keeps rate limiting, new messages pile up in the queue
+ * and the ones over {@code maxQueued} are dropped instead.</p>
+ *
+ * <pre>
+ * WebhookDispatcher.of(url).queue("Server started", "Console", null);
+ * </pre>
+ */
+public class WebhookDispatcher {
+    public static final int MAX_CONTENT_LENGTH = 2000;
+    public static final int MAX_EMBEDS = 10;
+    public static final int MAX_EMBED_LENGTH = 6000;
+
+    private static final Map<String, WebhookDispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BSLib-Webhooks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String url;
+    private final HttpEngine engine;
+    private final int maxQueued;
+    private final int maxRetries;
+
+    // Guarded by this
+    private final Deque<Message> queue = new ArrayDeque<>();
+    private final TokenBucket bucket = new TokenBucket(5, 2000);
+    private List<Message> inFlight = null;
+    private int attempts = 0;
+    private boolean sending = false;
+    private boolean scheduled = false;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public WebhookDispatcher(String url) {
+        this(url, WebConnector.getEngine(), 1000, 5);
+    }
+
+    /**
+     * @param engine     What the requests are sent with
+     * @param maxQueued  The most messages waiting to be sent, any more are dropped
+     * @param maxRetries How many times a failed request is sent again before its messages are dropped (429s do not count)
+     */
+    public WebhookDispatcher(String url, HttpEngine engine, int maxQueued, int maxRetries) {
+        this.url = url;
+        this.engine = engine;
+        this.maxQueued = maxQueued;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Gets the shared dispatcher for the webhook url
+     */
+    public static WebhookDispatcher of(String url) {
+        return DISPATCHERS.computeIfAbsent(url, WebhookDispatcher::new);
+    }
+
+    /**
+     * Queues a plain message
+     *
+     * @return false if the queue was full and the message was dropped
+     */
+    public boolean queue(String content, String username, String avatarUrl) {
+        return queue(new Message(content, username, avatarUrl, false, Collections.emptyList()));
+    }
+
+    /**
+     * Queues the webhooks current content and embeds
+     *
+     * @return false if the queue was full and the message was dropped
+     */
+    public boolean queue(DiscordWebhook webhook) {
+        if (webhook.getContent() == null && webhook.getEmbeds().isEmpty()) {
+            throw new IllegalArgumentException("Set content or add at least one EmbedObject");
+        }
+        List<JsonObject> embeds = new ArrayList<>();
+        for (DiscordWebhook.EmbedObject embed : webhook.getEmbeds()) {
+            embeds.add(Json.parse(webhook.toJson(embed)).asObject());
+        }
+        return queue(new Message(webhook.getContent(), webhook.getUsername(), webhook.getAvatarUrl(), webhook.isTts(), embeds));
+    }
+
+    private boolean queue(Message message) {
+        synchronized (this) {
+            if (queue.size() >= maxQueued) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            queue.add(message);
+            schedule(0);
+        }
+        return true;
+    }
+
+    /**
+     * The amount of messages waiting to be sent (including the ones being sent right now)
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size() + ((inFlight == null) ? 0 : inFlight.size());
+    }
+
+    /**
+     * The amount of messages that have been sent
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /**
+     * The amount of requests that have been made (merged messages count as one)
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * The amount of messages that were dropped, because the queue was full or they kept failing
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * The amount of requests Discord answered with a 429
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    // Called while holding the lock
+    private void schedule(long delay) {
+        if (scheduled) return;
+        scheduled = true;
+        SCHEDULER.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        List<Message> batch;
+        synchronized (this) {
+            scheduled = false;
+            if (sending) return;
+            if (inFlight == null) {
+                if (queue.isEmpty()) return;
+                inFlight = nextBatch();
+                attempts = 0;
+            }
+
+            long wait = bucket.take(System.currentTimeMillis());
+            if (wait > 0) {
+                schedule(wait);
+                return;
+            }
+            sending = true;
+            batch = inFlight;
+        }
+
+        byte[] body = toPayload(batch).getBytes(StandardCharsets.UTF_8);
+        requests.incrementAndGet();
+        engine.request(url, connection -> post(connection, body)).whenComplete((response, throwable) -> {
+            synchronized (this) {
+                sending = false;
+                handle(batch, response, throwable);
+            }
+        });
+    }
+
+    // Called while holding the lock
+    private void handle(List<Message> batch, Response response, Throwable throwable) {
+        long now = System.currentTimeMillis();
+        if (response != null) bucket.update(response, now);
+
+        if ((response != null) && (response.status / 100 == 2)) {
+            sent.addAndGet(batch.size());
+            inFlight = null;
+            schedule(0);
+            return;
+        }
+
+        if ((response != null) && (response.status == 429)) {
+            rateLimited.incrementAndGet();
+            long retryAfter = response.getRetryAfter();
+            bucket.block(now + retryAfter);
+            schedule(retryAfter);
+            return;
+        }
+
+        // Anything other than a server error would fail the same way again
+        boolean retry = (throwable != null) || (response.status >= 500);
+        if (!retry || (++attempts > maxRetries)) {
+            drop(batch);
+            return;
+        }
+        schedule(Math.min(1000L << (attempts - 1), 30000L));
+    }
+
+    private void drop(List<Message> batch) {
+        dropped.addAndGet(batch.size());
+        inFlight = null;
+        schedule(0);
+    }
+
+    /**
+     * Takes as many messages from the queue as fit into one request
+     */
+    private List<Message> nextBatch() {
+        List<Message> batch = new ArrayList<>();
+        Message first = queue.poll();
+        batch.add(first);
+
+        int contentLength = (first.content == null) ? 0 : first.content.length();
+        int embedCount = first.embeds.size();
+        int embedLength = first.embedLength;
+        Message next;
+        while ((next = queue.peek()) != null) {
+            if (!Objects.equals(first.username, next.username) || !Objects.equals(first.avatarUrl, next.avatarUrl) || (first.tts != next.tts)) break;
+
+            int addedContent = (next.content == null) ? 0 : next.content.length() + ((contentLength == 0) ? 0 : 1);
+            if ((contentLength + addedContent) > MAX_CONTENT_LENGTH) break;
+            if ((embedCount + next.embeds.size()) > MAX_EMBEDS) break;
+            if ((embedLength + next.embedLength) > MAX_EMBED_LENGTH) break;
+
+            contentLength += addedContent;
+            embedCount += next.embeds.size();
+            embedLength += next.embedLength;
+            batch.add(queue.poll());
+        }
+        return batch;
+    }
+
+    private static String toPayload(List<Message> batch) {
+        Message first = batch.get(0);
+        StringBuilder content = new StringBuilder();
+        JsonArray embeds = new JsonArray();
+        for (Message message : batch) {
+            if (message.content != null) {
+                if (content.length() != 0) content.append('\n');
+                content.append(message.content);
+            }
+            message.embeds.forEach(embeds::add);
+        }
+
+        JsonObject json = new JsonObject();
+        if (content.length() != 0) json.add("content", content.toString());
+        if (first.username != null) json.add("username", first.username);
+        if (first.avatarUrl != null) json.add("avatar_url", first.avatarUrl);
+        if (first.tts) json.add("tts", true);
+        if (!embeds.isEmpty()) json.add("embeds", embeds);
+        return json.toString();
+    }
+
+    private static Response post(HttpURLConnection connection, byte[] body) throws IOException {
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream stream = connection.getOutputStream()) {
+            stream.write(body);
+        }
+
+        int status = connection.getResponseCode();
+        String text = "";
+        try (InputStream stream = (status >= 400) ? connection.getErrorStream() : connection.getInputStream()) {
+            if (stream != null) text = ApacheUtils.toString(stream);
+        }
+        return new Response(status, connection.getHeaderFields(), text);
+    }
+
+    private static final class Message {
+        private final String content;
+        private final String username;
+        private final String avatarUrl;
+        private final boolean tts;
+        private final List<JsonObject> embeds;
+        private final int embedLength;
+
+        private Message(String content, String username, String avatarUrl, boolean tts, List<JsonObject> embeds) {
+            this.content = content;
+            this.username = username;
+            this.avatarUrl = avatarUrl;
+            this.tts = tts;
+            this.embeds = embeds;
+
+            // The JSON length is a little over the text Discord counts, so this stays under the limit
+            int length = 0;
+            for (JsonObject embed : embeds) length += embed.toString().length();
+            this.embedLength = length;
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final String body;
+
+        private Response(int status, Map<String, List<String>> headers, String body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private String getHeader(String name) {
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if ((entry.getKey() != null) && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                    return entry.getValue().get(0);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * How long to wait before trying again (in millis), from the header or the body
+         */
+        private long getRetryAfter() {
+            double seconds = parse(getHeader("Retry-After"), -1);
+            if (seconds < 0) {
+                try {
+                    JsonValue value = Json.parse(body);
+                    if (value.isObject()) seconds = value.asObject().getDouble("retry_after", -1);
+                } catch (Exception ignored) {}
+            }
+            return (seconds < 0) ? 1000 : (long) Math.ceil(seconds * 1000);
+        }
+
+        private static double parse(String value, double fallback) {
+            if (value == null) return fallback;
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+    }
+
+    /**
+     * Allows {@code capacity} requests per {@code period}. The capacity and remaining tokens follow
+     * the X-RateLimit headers Discord sends back.
+     */
+    private static final class TokenBucket {
+        private double capacity;
+        private double tokens;
+        private double refillPerMilli;
+        private long lastRefill = System.currentTimeMillis();
+        private long blockedUntil = 0;
+
+        private TokenBucket(int capacity, long period) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refillPerMilli = capacity / (double) period;
+        }
+
+        /**
+         * Takes a token if there is one
+         *
+         * @return 0 if a token was taken, otherwise how long until there is one (in millis)
+         */
+        private long take(long now) {
+            refill(now);
+            if (now < blockedUntil) return blockedUntil - now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMilli));
+        }
+
+        private void block(long until) {
+            blockedUntil = Math.max(blockedUntil, until);
+            tokens = 0;
+        }
+
+        private void update(Response response, long now) {
+            double limit = Response.parse(response.getHeader("X-RateLimit-Limit"), -1);
+            double remaining = Response.parse(response.getHeader("X-RateLimit-Remaining"), -1);
+            double resetAfter = Response.parse(response.getHeader("X-RateLimit-Reset-After"), -1);
+            if ((limit <= 0) || (remaining < 0) || (resetAfter < 0)) return;
+
+            capacity = limit;
+            tokens = Math.min(tokens, remaining);
+            if (remaining == 0) block(now + (long) Math.ceil(resetAfter * 1000));
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMilli);
+                lastRefill = now;
+            }
+        }
+    }
+}
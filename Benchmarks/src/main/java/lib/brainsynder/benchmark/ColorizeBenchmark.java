@@ -0,0 +1,79 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.utils.Colorize;
+import lib.brainsynder.utils.compnent.Part;
+import net.md_5.bungee.api.ChatColor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Colorize#translateBungeeHex(String)} on plain, legacy and hex heavy text, for a short
+ * line (a lore line) and a long line (a chat/book page sized one)
+ *
+ * <p>{@link #regexTranslate()} is how translateBungeeHex used to work, to compare against</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorizeBenchmark {
+    @Param({"plain", "legacy", "hex"})
+    public String type;
+
+    @Param({"short", "long"})
+    public String length;
+
+    private static final Pattern HEX_PATTERN = Pattern.compile("&#(\\w{5}[0-9a-fA-F])");
+    private String text;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "plain":
+                text = "Welcome to the server, type /help to see the commands you can use";
+                break;
+            case "legacy":
+                text = "&6Welcome &7to the &a&lserver&r&7, type &e/help &7to see the &bcommands &7you can use";
+                break;
+            default:
+                text = "&#FFAA00Welcome &#AAAAAAto the &#55FF55&lserver&r&#AAAAAA, type &#FFFF55/help &#AAAAAAto see the &#55FFFFcommands";
+        }
+        if (length.equals("long")) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 8; i++) builder.append(text).append(' ');
+            text = builder.toString();
+        }
+    }
+
+    @Benchmark
+    public String translateBungeeHex() {
+        return Colorize.translateBungeeHex(text);
+    }
+
+    @Benchmark
+    public String compileBungeeHex() {
+        return Colorize.compileBungeeHex(text);
+    }
+
+    @Benchmark
+    public List<Part> splitMessageToParts() {
+        return Colorize.splitMessageToParts(text);
+    }
+
+    @Benchmark
+    public String regexTranslate() {
+        String value = text.replace(ChatColor.COLOR_CHAR, '&');
+        Matcher matcher = HEX_PATTERN.matcher(value);
+        StringBuffer buffer = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(buffer, ChatColor.of("#" + matcher.group(1)).toString());
+        }
+        return ChatColor.translateAlternateColorCodes('&', matcher.appendTail(buffer).toString());
+    }
+}
@@ -0,0 +1,54 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.storage.ConcurrentCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConcurrentCache} reads and loads from 4 threads, with a skewed key distribution
+ * (most reads go to a small set of keys, like player lookups do)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentCacheBenchmark {
+    private static final int KEYS = 1 << 16;
+
+    private ConcurrentCache<Integer, Integer> cache;
+    private final Integer[] keys = new Integer[KEYS];
+
+    @Setup
+    public void setup() {
+        cache = new ConcurrentCache<>(KEYS / 8);
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            // Roughly a power law, low keys are far more common
+            keys[i] = (int) (Math.pow(random.nextDouble(), 3) * KEYS);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Position {
+        private int index = (int) (Math.random() * KEYS);
+
+        private int next() {
+            return index = (index + 1) & (KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public Integer getIfPresent(Position position) {
+        return cache.getIfPresent(keys[position.next()]);
+    }
+
+    @Benchmark
+    public Integer computeIfAbsent(Position position) {
+        return cache.computeIfAbsent(keys[position.next()], key -> key);
+    }
+}
@@ -0,0 +1,51 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.storage.ExpireHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExpireHashMap} puts (refreshing existing keys) and gets
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpireHashMapBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ExpireHashMap<Integer, String> map;
+    private Integer[] keys;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        map = new ExpireHashMap<>();
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+            // Spread over a few minutes so the entries land on different levels of the wheel
+            map.put(keys[i], "value", 60 + (i % 240), TimeUnit.SECONDS);
+        }
+    }
+
+    private Integer nextKey() {
+        if (++index == size) index = 0;
+        return keys[index];
+    }
+
+    @Benchmark
+    public String put() {
+        Integer key = nextKey();
+        return map.put(key, "value", 60 + (key % 240), TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(nextKey());
+    }
+}
@@ -0,0 +1,91 @@
+package lib.brainsynder.benchmark;
+
+import com.google.common.base.Ticker;
+import lib.brainsynder.storage.ExpireHashMap;
+
+import java.lang.reflect.Field;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the same keys 1,000,000 times (with put, and with get on an expire after access map)
+ * on a fake clock, and checks that neither the map nor its timing wheel grows with the refreshes.
+ * Fails if the wheel holds more entries than there are keys.
+ *
+ * <pre>
+ * java -cp Benchmarks/target/benchmarks.jar lib.brainsynder.benchmark.ExpireHashMapRefresh
+ * </pre>
+ */
+public final class ExpireHashMapRefresh {
+    private static final int KEYS = 1_000;
+    private static final int REFRESHES = 1_000_000;
+
+    private ExpireHashMapRefresh() {}
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        FakeTicker ticker = new FakeTicker();
+        ExpireHashMap<Integer, String> puts = new ExpireHashMap<>(ticker);
+        ExpireHashMap<Integer, String> reads = new ExpireHashMap<>(ticker, true);
+        for (int key = 0; key < KEYS; key++) reads.put(key, "value", 30, TimeUnit.SECONDS);
+
+        Random random = new Random(42);
+        long startHeap = usedHeap();
+        for (int i = 1; i <= REFRESHES; i++) {
+            // A refresh every millisecond, so every key is refreshed well before its 30 seconds are up
+            ticker.nanos += TimeUnit.MILLISECONDS.toNanos(1);
+            int key = random.nextInt(KEYS);
+            puts.put(key, "value", 30, TimeUnit.SECONDS);
+            reads.get(key);
+
+            if ((i % 100_000) == 0) {
+                check("put", puts, i);
+                check("get", reads, i);
+            }
+        }
+        System.out.printf("Heap used: %,d KB before, %,d KB after%n", startHeap / 1024, usedHeap() / 1024);
+    }
+
+    private static void check(String name, ExpireHashMap<?, ?> map, int refreshes) throws ReflectiveOperationException {
+        int size = map.size();
+        int linked = countLinked(map);
+        System.out.printf("%s %,9d refreshes: size=%d wheel=%d%n", name, refreshes, size, linked);
+        if ((size > KEYS) || (linked > KEYS)) throw new IllegalStateException(name + " grew past " + KEYS + " keys");
+    }
+
+    /**
+     * Counts the entries linked into the timing wheel buckets
+     */
+    private static int countLinked(ExpireHashMap<?, ?> map) throws ReflectiveOperationException {
+        Field wheelField = ExpireHashMap.class.getDeclaredField("wheel");
+        wheelField.setAccessible(true);
+        Object[][] wheel = (Object[][]) wheelField.get(map);
+
+        Field nextField = null;
+        int count = 0;
+        for (Object[] buckets : wheel) {
+            for (Object sentinel : buckets) {
+                if (nextField == null) {
+                    nextField = sentinel.getClass().getDeclaredField("next");
+                    nextField.setAccessible(true);
+                }
+                for (Object entry = nextField.get(sentinel); entry != sentinel; entry = nextField.get(entry)) count++;
+            }
+        }
+        return count;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class FakeTicker extends Ticker {
+        private long nanos = 0;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+}
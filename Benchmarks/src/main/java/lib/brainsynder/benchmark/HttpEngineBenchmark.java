@@ -0,0 +1,81 @@
+package lib.brainsynder.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import lib.brainsynder.web.HttpEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpEngine} against a server on localhost, compared to opening a new connection
+ * on the common pool for every request (how WebConnector used to work)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpEngineBenchmark {
+    private static final byte[] BODY = "{\"name\":\"Notch\",\"properties\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private HttpEngine engine;
+    private String url;
+
+    @Setup
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/profile", exchange -> {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(BODY);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+
+        engine = new HttpEngine(4, 4, 1024);
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/profile";
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public String engine() {
+        return engine.getString(url).join();
+    }
+
+    @Benchmark
+    public String commonPool() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setConnectTimeout(10000);
+                connection.setReadTimeout(10000);
+                byte[] bytes = new byte[BODY.length];
+                try {
+                    int read = 0;
+                    while (read < bytes.length) read += connection.getInputStream().read(bytes, read, bytes.length - read);
+                } finally {
+                    connection.disconnect();
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).join();
+    }
+}
@@ -0,0 +1,71 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.item.ItemBuilder;
+import lib.brainsynder.item.ItemTemplate;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshing a 54 slot menu for one viewer, by building every icon with {@link ItemBuilder} (what
+ * menus do now) and by rendering {@link ItemTemplate}s compiled once.
+ * Uses a stub server, so the meta is a plain map instead of the CraftBukkit one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemTemplateBenchmark {
+    private static final int SLOTS = 54;
+    private static final String NAME = "&#FFAA00{player}&7's &e&lSlot #{slot}";
+    private static final List<String> LORE = Arrays.asList(
+            "&7Owner: &f{player}",
+            "&7Coins: &6{coins}",
+            "",
+            "&#55FF55Click to open this slot",
+            "&8&o(slot {slot} of 54)"
+    );
+
+    private ItemTemplate[] templates;
+    private Map<String, Object> values;
+
+    @Setup
+    public void setup() {
+        Stubs.installServer();
+        templates = new ItemTemplate[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            templates[slot] = new ItemBuilder(Material.DIAMOND).withName(NAME).withLore(LORE)
+                    .replaceString("{slot}", slot).compile("{player}", "{coins}");
+        }
+        values = new HashMap<>();
+        values.put("{player}", "Notch");
+        values.put("{coins}", 1250);
+    }
+
+    @Benchmark
+    public ItemStack[] builderRefresh() {
+        ItemStack[] items = new ItemStack[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            items[slot] = new ItemBuilder(Material.DIAMOND).withName(NAME).withLore(LORE)
+                    .replaceString("{slot}", slot)
+                    .replaceString("{player}", values.get("{player}"))
+                    .replaceString("{coins}", values.get("{coins}")).build();
+        }
+        return items;
+    }
+
+    @Benchmark
+    public ItemStack[] templateRefresh() {
+        ItemStack[] items = new ItemStack[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) items[slot] = templates[slot].render(values);
+        return items;
+    }
+}
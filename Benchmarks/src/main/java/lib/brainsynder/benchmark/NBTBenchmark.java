@@ -0,0 +1,88 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.nbt.CompressedStreamTools;
+import lib.brainsynder.nbt.StorageTagCompound;
+import lib.brainsynder.nbt.StorageTagList;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary NBT reading/writing with {@link CompressedStreamTools}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NBTBenchmark {
+    @Param({"10", "500"})
+    public int entries;
+
+    private StorageTagCompound compound;
+    private byte[] compressed;
+    private byte[] raw;
+
+    @Setup
+    public void setup() throws IOException {
+        compound = createCompound(entries);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CompressedStreamTools.writeCompressed(compound, output);
+        compressed = output.toByteArray();
+
+        output = new ByteArrayOutputStream();
+        CompressedStreamTools.writeTag(compound, new DataOutputStream(output));
+        raw = output.toByteArray();
+    }
+
+    static StorageTagCompound createCompound(int entries) {
+        StorageTagCompound compound = new StorageTagCompound();
+        StorageTagList list = new StorageTagList();
+        for (int i = 0; i < entries; i++) {
+            StorageTagCompound child = new StorageTagCompound();
+            child.setString("name", "entry-" + i);
+            child.setInteger("index", i);
+            child.setDouble("x", i * 1.5);
+            child.setBoolean("enabled", (i & 1) == 0);
+            child.setIntArray("values", new int[]{i, i + 1, i + 2, i + 3});
+            list.appendTag(child);
+
+            compound.setLong("long-" + i, i * 31L);
+            compound.setString("string-" + i, "value " + i);
+        }
+        compound.setTag("list", list);
+        return compound;
+    }
+
+    @Benchmark
+    public byte[] writeCompressed() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length);
+        CompressedStreamTools.writeCompressed(compound, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public StorageTagCompound readCompressed() throws IOException {
+        return CompressedStreamTools.readCompressed(new ByteArrayInputStream(compressed));
+    }
+
+    @Benchmark
+    public StorageTagCompound readCompressedLazy() throws IOException {
+        return CompressedStreamTools.readCompressedLazy(new ByteArrayInputStream(compressed));
+    }
+
+    @Benchmark
+    public byte[] writeRaw() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length);
+        CompressedStreamTools.writeTag(compound, new DataOutputStream(output));
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public Object readRaw() throws IOException {
+        return CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(raw)));
+    }
+}
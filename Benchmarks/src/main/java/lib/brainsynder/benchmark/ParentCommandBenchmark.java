@@ -0,0 +1,106 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.commands.ParentCommand;
+import lib.brainsynder.commands.SubCommand;
+import lib.brainsynder.commands.annotations.ICommand;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sub command lookup and tab completion in {@link ParentCommand}, using a stub sender
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParentCommandBenchmark {
+    private Root root;
+    private CommandSender sender;
+
+    private final String[] first = {"help"};
+    private final String[] last = {"teleport", "Notch"};
+    private final String[] alias = {"TP", "Notch"};
+    private final String[] unknown = {"nothing"};
+    private final String[] complete = {"s"};
+
+    @Setup
+    public void setup() {
+        root = new Root();
+        sender = Stubs.sender();
+    }
+
+    @Benchmark
+    public boolean dispatchFirst() {
+        return root.onCommand(sender, null, "root", first);
+    }
+
+    @Benchmark
+    public boolean dispatchLast() {
+        return root.onCommand(sender, null, "root", last);
+    }
+
+    @Benchmark
+    public boolean dispatchAlias() {
+        return root.onCommand(sender, null, "root", alias);
+    }
+
+    @Benchmark
+    public boolean dispatchUnknown() {
+        return root.onCommand(sender, null, "root", unknown);
+    }
+
+    @Benchmark
+    public List<String> tabComplete() {
+        return root.onTabComplete(sender, null, "root", complete);
+    }
+
+    static class Root extends ParentCommand<SubCommand> {
+        Root() {
+            registerSub(new Help());
+            registerSub(new Reload());
+            registerSub(new Save());
+            registerSub(new Set());
+            registerSub(new Spawn());
+            registerSub(new Stats());
+            registerSub(new Summon());
+            registerSub(new Teleport());
+        }
+
+        @Override
+        public void run(CommandSender sender, String[] args) {}
+    }
+
+    static class Base extends SubCommand {
+        @Override
+        public void run(CommandSender sender, String[] args) {}
+    }
+
+    @ICommand(name = "help", alias = {"?"})
+    static class Help extends Base {}
+
+    @ICommand(name = "reload", alias = {"rl"})
+    static class Reload extends Base {}
+
+    @ICommand(name = "save")
+    static class Save extends Base {}
+
+    @ICommand(name = "set", alias = {"setting"})
+    static class Set extends Base {}
+
+    @ICommand(name = "spawn")
+    static class Spawn extends Base {}
+
+    @ICommand(name = "stats", alias = {"statistics"})
+    static class Stats extends Base {}
+
+    @ICommand(name = "summon")
+    static class Summon extends Base {}
+
+    @ICommand(name = "teleport", alias = {"tp"})
+    static class Teleport extends Base {}
+}
@@ -0,0 +1,66 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.particle.Particle;
+import lib.brainsynder.particle.ParticleBatch;
+import lib.brainsynder.particle.ParticleMaker;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of particle emissions, spread over a 400x400 block area with players standing in it,
+ * sent one at a time with {@link ParticleMaker#sendToLocation(Location)} or through a {@link ParticleBatch}
+ *
+ * <p>The players only count the particles, so this measures finding who gets each emission
+ * and not the packets themselves. sendToLocation checks a 100 block box and the batch a 100 block
+ * sphere, so the batch sends a few less.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParticleBatchBenchmark {
+    @Param({"10", "100"})
+    public int players;
+
+    @Param({"500", "5000"})
+    public int emissions;
+
+    private final long[] particlesSent = new long[1];
+    private ParticleMaker maker;
+    private Location[] points;
+    private ParticleBatch batch;
+
+    @Setup
+    public void setup() {
+        // The particles look up the server version
+        Stubs.installServer();
+        World world = Stubs.world(players, 200, particlesSent);
+        maker = new ParticleMaker(Particle.FLAME, 1, 0.1);
+        Random random = new Random(emissions);
+        points = new Location[emissions];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Location(world, (random.nextDouble() * 2 - 1) * 200, 64, (random.nextDouble() * 2 - 1) * 200);
+        }
+        // No plugin, the flush is called here rather than scheduled
+        batch = new ParticleBatch(null);
+    }
+
+    @Benchmark
+    public long sendEach() {
+        for (Location point : points) maker.sendToLocation(point);
+        return particlesSent[0];
+    }
+
+    @Benchmark
+    public long batched() {
+        for (Location point : points) batch.queue(maker, point);
+        batch.flush();
+        return particlesSent[0];
+    }
+}
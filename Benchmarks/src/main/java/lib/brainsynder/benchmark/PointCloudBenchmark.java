@@ -0,0 +1,69 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.math.MathUtils;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotating and moving a 500 point helix (one particle frame), with a {@link Vector} per point
+ * compared to the batch methods in {@link MathUtils} on a coordinate buffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointCloudBenchmark {
+    private static final int POINTS = 500;
+
+    private final double[] helix = new double[POINTS * 3];
+    private final double[] buffer = new double[POINTS * 3];
+    private final float[] helixFloats = new float[POINTS * 3];
+    private final float[] floatBuffer = new float[POINTS * 3];
+    private final Vector[] vectors = new Vector[POINTS];
+    private float yaw = 0;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < POINTS; i++) {
+            double angle = i * 0.1;
+            double x = Math.cos(angle), y = i * 0.01, z = Math.sin(angle);
+            helix[i * 3] = x;
+            helix[i * 3 + 1] = y;
+            helix[i * 3 + 2] = z;
+            helixFloats[i * 3] = (float) x;
+            helixFloats[i * 3 + 1] = (float) y;
+            helixFloats[i * 3 + 2] = (float) z;
+            vectors[i] = new Vector(x, y, z);
+        }
+    }
+
+    @Benchmark
+    public List<Vector> vectors() {
+        float yaw = (this.yaw += 3);
+        List<Vector> points = new ArrayList<>(POINTS);
+        for (Vector vector : vectors) points.add(MathUtils.rotate(yaw, 15, vector).add(new Vector(100.5, 64, -20.5)));
+        return points;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        float yaw = (this.yaw += 3);
+        MathUtils.rotate(yaw, 15, helix, buffer);
+        MathUtils.translate(buffer, 100.5, 64, -20.5);
+        return buffer;
+    }
+
+    @Benchmark
+    public float[] batchFloats() {
+        float yaw = (this.yaw += 3);
+        MathUtils.rotate(yaw, 15, helixFloats, floatBuffer);
+        MathUtils.translate(floatBuffer, 100.5F, 64, -20.5F);
+        return floatBuffer;
+    }
+}
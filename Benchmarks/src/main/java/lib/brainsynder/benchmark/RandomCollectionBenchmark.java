@@ -0,0 +1,35 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.storage.RandomCollection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted picks with {@link RandomCollection#next()}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RandomCollectionBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private RandomCollection<Integer> collection;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        collection = new RandomCollection<>(new Random(7));
+        for (int i = 0; i < size; i++) collection.add(1 + random.nextInt(100), i);
+    }
+
+    @Benchmark
+    public Integer next() {
+        return collection.next();
+    }
+}
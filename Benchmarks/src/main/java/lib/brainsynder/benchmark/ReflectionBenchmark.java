@@ -0,0 +1,62 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.reflection.ReflectionCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReflectionCache.Invoker} (a MethodHandle) compared to {@link Method#invoke(Object, Object...)},
+ * and the cached lookup compared to {@link Class#getDeclaredMethod(String, Class[])}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReflectionBenchmark {
+    private final Target target = new Target();
+    private Method method;
+    private ReflectionCache.Invoker invoker;
+    private final Object[] args = {21};
+
+    @Setup
+    public void setup() throws Exception {
+        method = Target.class.getDeclaredMethod("twice", int.class);
+        method.setAccessible(true);
+        invoker = ReflectionCache.getMethod(Target.class, "twice", int.class);
+    }
+
+    @Benchmark
+    public int direct() {
+        return target.twice((Integer) args[0]);
+    }
+
+    @Benchmark
+    public Object methodInvoke() throws Exception {
+        return method.invoke(target, args);
+    }
+
+    @Benchmark
+    public Object invoker() throws Exception {
+        return invoker.invoke(target, args);
+    }
+
+    @Benchmark
+    public Method lookupDeclared() throws Exception {
+        return Target.class.getDeclaredMethod("twice", int.class);
+    }
+
+    @Benchmark
+    public ReflectionCache.Invoker lookupCached() throws Exception {
+        return ReflectionCache.getMethod(Target.class, "twice", int.class);
+    }
+
+    static class Target {
+        private int twice(int value) {
+            return value * 2;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.nbt.JsonToNBT;
+import lib.brainsynder.nbt.StorageTagCompound;
+import lib.brainsynder.nbt.other.NBTException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String NBT parsing ({@link JsonToNBT}) and printing ({@link StorageTagCompound#toString()})
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SNBTBenchmark {
+    @Param({"10", "500"})
+    public int entries;
+
+    private StorageTagCompound compound;
+    private String text;
+
+    @Setup
+    public void setup() {
+        compound = NBTBenchmark.createCompound(entries);
+        text = compound.toString();
+    }
+
+    @Benchmark
+    public StorageTagCompound parse() throws NBTException {
+        return JsonToNBT.getTagFromJson(text);
+    }
+
+    @Benchmark
+    public String print() {
+        return compound.toString();
+    }
+}
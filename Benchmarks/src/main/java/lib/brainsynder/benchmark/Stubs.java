@@ -0,0 +1,189 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.ServerVersion;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Stand-ins for the Bukkit objects the benchmarks need, so they run without a server
+ */
+final class Stubs {
+    private Stubs() {}
+
+    /**
+     * A sender that has every permission and ignores every message
+     */
+    static CommandSender sender() {
+        return (CommandSender) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{CommandSender.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                case "toString":
+                    return "Benchmark";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+            }
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) return true;
+            if (type == int.class) return 0;
+            if (type == long.class) return 0L;
+            if (type == double.class) return 0.0D;
+            if (type == float.class) return 0.0F;
+            return null;
+        });
+    }
+
+    /**
+     * Sets a 1.17.1 server that only has an item factory, so ItemStacks can have meta. The meta only keeps
+     * what is set on it (name, lore, ...), it does not do what CraftBukkit does.
+     */
+    static synchronized void installServer() {
+        if (Bukkit.getServer() != null) return;
+        ItemFactory factory = (ItemFactory) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{ItemFactory.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItemMeta":
+                    return meta(new HashMap<>());
+                case "isApplicable":
+                    return true;
+                case "asMetaFor":
+                    return args[0];
+                case "updateMaterial":
+                    return args[1];
+                case "equals":
+                    return (args.length == 2) ? Objects.equals(args[0], args[1]) : (proxy == args[0]);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+            }
+            return null;
+        });
+        Logger logger = Logger.getLogger("Benchmark");
+        Bukkit.setServer((Server) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{Server.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItemFactory":
+                    return factory;
+                case "getLogger":
+                    return logger;
+                case "getVersion":
+                    return "git-Benchmark (MC: 1.17.1)";
+                case "getBukkitVersion":
+                    return "1.17.1-R0.1-SNAPSHOT";
+                case "getName":
+                case "toString":
+                    return "Benchmark";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+            }
+            return defaultValue(method.getReturnType());
+        }));
+
+        // ServerVersion falls back to the CraftBukkit package name, which the proxy does not have
+        try {
+            Field current = ServerVersion.class.getDeclaredField("CURRENT_VERSION");
+            current.setAccessible(true);
+            current.set(null, ServerVersion.v1_17_1);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A world with players standing at random spots within the spread (in blocks) of 0,0. The players
+     * count how many particles they were sent instead of sending them.
+     */
+    static World world(int playerCount, double spread, long[] particlesSent) {
+        List<Player> players = new ArrayList<>();
+        World world = (World) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPlayers":
+                    return new ArrayList<>(players);
+                case "getName":
+                case "toString":
+                    return "world";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+            }
+            return defaultValue(method.getReturnType());
+        });
+
+        Random random = new Random(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            Location location = new Location(world, (random.nextDouble() * 2 - 1) * spread, 64, (random.nextDouble() * 2 - 1) * spread);
+            players.add((Player) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{Player.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getLocation":
+                        // A copy every time, like the server does
+                        return location.clone();
+                    case "getWorld":
+                        return world;
+                    case "spawnParticle":
+                        particlesSent[0]++;
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                }
+                return defaultValue(method.getReturnType());
+            }));
+        }
+        return world;
+    }
+
+    private static ItemMeta meta(Map<String, Object> values) {
+        return (ItemMeta) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{ItemMeta.class}, (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "clone":
+                    Map<String, Object> copy = new HashMap<>(values);
+                    copy.computeIfPresent("Lore", (key, lore) -> new ArrayList<>((List<?>) lore));
+                    return meta(copy);
+                case "getLore":
+                    return values.containsKey("Lore") ? new ArrayList<>((List<?>) values.get("Lore")) : null;
+                case "hashCode":
+                    return values.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "ItemMeta" + values;
+            }
+            if (name.startsWith("set") && (args != null) && (args.length == 1)) {
+                values.put(name.substring(3), args[0]);
+                return null;
+            }
+            if (name.startsWith("get")) return values.containsKey(name.substring(3)) ? values.get(name.substring(3)) : defaultValue(method.getReturnType());
+            if (name.startsWith("has")) return values.get(name.substring(3)) != null;
+            if (name.startsWith("is")) return Boolean.TRUE.equals(values.get(name.substring(2)));
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0D;
+        if (type == float.class) return 0.0F;
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.math.MathUtils;
+import lib.brainsynder.math.TrigMath;
+
+import java.util.Random;
+
+/**
+ * Prints the largest and average error of the lookup table trig compared to {@link Math}
+ * (in radians), to go with the timings from {@link TrigBenchmark}.
+ *
+ * <pre>
+ * java -cp Benchmarks/target/benchmarks.jar lib.brainsynder.benchmark.TrigAccuracy
+ * </pre>
+ */
+public final class TrigAccuracy {
+    private static final int SAMPLES = 1_000_000;
+
+    private TrigAccuracy() {}
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        Error sin = new Error("MathUtils.sin"), cos = new Error("MathUtils.cos");
+        Error atan2 = new Error("MathUtils.atan2"), trigAtan = new Error("TrigMath.atan"), trigAtan2 = new Error("TrigMath.atan2");
+
+        for (int i = 0; i < SAMPLES; i++) {
+            float angle = (random.nextFloat() * 4 - 2) * MathUtils.PI;
+            sin.add(MathUtils.sin(angle), Math.sin(angle));
+            cos.add(MathUtils.cos(angle), Math.cos(angle));
+
+            float y = random.nextFloat() * 200 - 100;
+            float x = random.nextFloat() * 200 - 100;
+            atan2.add(MathUtils.atan2(y, x), Math.atan2(y, x));
+            trigAtan2.add(TrigMath.atan2(y, x), Math.atan2(y, x));
+            trigAtan.add(TrigMath.atan(y / x), Math.atan(y / x));
+        }
+
+        for (Error error : new Error[]{sin, cos, atan2, trigAtan, trigAtan2}) System.out.println(error);
+    }
+
+    private static final class Error {
+        private final String name;
+        private double max = 0;
+        private double sum = 0;
+        private int count = 0;
+
+        private Error(String name) {
+            this.name = name;
+        }
+
+        private void add(double value, double expected) {
+            double error = Math.abs(value - expected);
+            if (error > max) max = error;
+            sum += error;
+            count++;
+        }
+
+        public String toString() {
+            return String.format("%-16s max %.3e  mean %.3e", name, max, sum / count);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.math.MathUtils;
+import lib.brainsynder.math.TrigMath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookup table trig in {@link MathUtils} and {@link TrigMath} compared to {@link Math}.
+ * Each call runs over 1024 inputs so the JIT can not fold a constant.
+ * {@link TrigAccuracy} prints how far off each of them is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrigBenchmark {
+    private static final int SIZE = 1024;
+
+    private final float[] angles = new float[SIZE];
+    private final float[] ys = new float[SIZE];
+    private final float[] xs = new float[SIZE];
+    private final double[] ratios = new double[SIZE];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            angles[i] = (random.nextFloat() * 4 - 2) * MathUtils.PI;
+            ys[i] = random.nextFloat() * 200 - 100;
+            xs[i] = random.nextFloat() * 200 - 100;
+            ratios[i] = ys[i] / xs[i];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public float sinMathUtils() {
+        float sum = 0;
+        for (float angle : angles) sum += MathUtils.sin(angle);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double sinMath() {
+        double sum = 0;
+        for (float angle : angles) sum += Math.sin(angle);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public float cosMathUtils() {
+        float sum = 0;
+        for (float angle : angles) sum += MathUtils.cos(angle);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double cosMath() {
+        double sum = 0;
+        for (float angle : angles) sum += Math.cos(angle);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public float atan2MathUtils() {
+        float sum = 0;
+        for (int i = 0; i < SIZE; i++) sum += MathUtils.atan2(ys[i], xs[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double atan2TrigMath() {
+        double sum = 0;
+        for (int i = 0; i < SIZE; i++) sum += TrigMath.atan2(ys[i], xs[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double atan2Math() {
+        double sum = 0;
+        for (int i = 0; i < SIZE; i++) sum += Math.atan2(ys[i], xs[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double atanTrigMath() {
+        double sum = 0;
+        for (double ratio : ratios) sum += TrigMath.atan(ratio);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double atanMath() {
+        double sum = 0;
+        for (double ratio : ratios) sum += Math.atan(ratio);
+        return sum;
+    }
+}
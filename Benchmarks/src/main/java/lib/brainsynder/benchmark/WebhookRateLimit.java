@@ -0,0 +1,107 @@
+package lib.brainsynder.benchmark;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import lib.brainsynder.apache.ApacheUtils;
+import lib.brainsynder.web.HttpEngine;
+import lib.brainsynder.web.WebhookDispatcher;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a burst of log lines through a {@link WebhookDispatcher} to a local server that rate limits
+ * like Discord does (5 requests per second with the X-RateLimit headers, a 429 with Retry-After when
+ * that is used up). The first few requests always get a 429, more than the dispatcher retries failures,
+ * to check that rate limiting alone never drops messages. Fails if anything was dropped or did not
+ * arrive.
+ *
+ * <pre>
+ * java -cp Benchmarks/target/benchmarks.jar lib.brainsynder.benchmark.WebhookRateLimit
+ * </pre>
+ */
+public final class WebhookRateLimit {
+    private static final int MESSAGES = 300;
+    private static final int LIMIT = 5;
+    private static final long WINDOW = 1000;
+    // More than the dispatcher's 5 retries
+    private static final int FORCED_429 = 8;
+
+    private WebhookRateLimit() {}
+
+    public static void main(String[] args) throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger served429 = new AtomicInteger();
+        AtomicInteger requests = new AtomicInteger();
+        long[] window = {System.currentTimeMillis(), 0};
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/webhook", exchange -> {
+            String body;
+            try (InputStream stream = exchange.getRequestBody()) {
+                body = ApacheUtils.toString(stream);
+            }
+            int request = requests.incrementAndGet();
+
+            int remaining;
+            long resetAfter;
+            synchronized (window) {
+                long now = System.currentTimeMillis();
+                if ((now - window[0]) >= WINDOW) {
+                    window[0] = now;
+                    window[1] = 0;
+                }
+                remaining = (int) (LIMIT - ++window[1]);
+                resetAfter = WINDOW - (now - window[0]);
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.add("X-RateLimit-Limit", String.valueOf(LIMIT));
+            headers.add("X-RateLimit-Remaining", String.valueOf(Math.max(remaining, 0)));
+            headers.add("X-RateLimit-Reset-After", String.valueOf(resetAfter / 1000.0));
+            if ((request <= FORCED_429) || (remaining < 0)) {
+                served429.incrementAndGet();
+                headers.add("Retry-After", String.valueOf(((request <= FORCED_429) ? 100 : resetAfter) / 1000.0));
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+
+            JsonObject json = Json.parse(body).asObject();
+            received.addAndGet(json.getString("content", "").split("\n").length);
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        ExecutorService serverThreads = Executors.newFixedThreadPool(2);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        HttpEngine engine = new HttpEngine(2, 2, 1024);
+        WebhookDispatcher dispatcher = new WebhookDispatcher("http://127.0.0.1:" + server.getAddress().getPort() + "/webhook", engine, 1000, 5);
+        try {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < MESSAGES; i++) {
+                dispatcher.queue("[" + i + "] Something happened on the server, this is log line number " + i, "Console", null);
+            }
+            while ((dispatcher.getQueueDepth() > 0) && ((System.currentTimeMillis() - start) < 60000)) Thread.sleep(50);
+
+            System.out.printf("Took %dms%n", System.currentTimeMillis() - start);
+            System.out.printf("Sent: %d, requests: %d, dropped: %d, rate limited: %d%n", dispatcher.getSentCount(),
+                    dispatcher.getRequestCount(), dispatcher.getDroppedCount(), dispatcher.getRateLimitedCount());
+            System.out.printf("Server got %d messages in %d requests, answered %d with a 429%n", received.get(), requests.get(), served429.get());
+
+            if ((dispatcher.getDroppedCount() != 0) || (dispatcher.getSentCount() != MESSAGES) || (received.get() != MESSAGES)) {
+                throw new IllegalStateException("Messages were dropped or lost");
+            }
+        } finally {
+            engine.shutdown();
+            server.stop(0);
+            serverThreads.shutdown();
+        }
+    }
+}
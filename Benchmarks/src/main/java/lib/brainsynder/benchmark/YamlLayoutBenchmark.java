@@ -0,0 +1,93 @@
+package lib.brainsynder.benchmark;
+
+import lib.brainsynder.files.YamlLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving a 2,000 key config (200 sections of 10 keys), every section has a header and every key a comment
+ *
+ * <p>{@link #rescanInsert()} is how YamlFile used to add the comments and headers (a scan of the lines
+ * from the top for each one, then a List.addAll at the index), to compare against</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YamlLayoutBenchmark {
+    private static final int SECTIONS = 200;
+    private static final int KEYS = 10;
+
+    private String yaml;
+    private YamlLayout layout;
+    private Map<String, List<String>> comments;
+    private Map<String, List<String>> sections;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        layout = new YamlLayout();
+        comments = new HashMap<>();
+        sections = new HashMap<>();
+        for (int i = 0; i < SECTIONS; i++) {
+            String section = "section-" + i;
+            builder.append(section).append(":\n");
+            layout.addSection(section, "Section " + i + "\nSettings of the " + i + " module");
+            sections.put(section, Arrays.asList("", "##########################", "#  Section " + i + "  #", "##########################"));
+
+            for (int j = 0; j < KEYS; j++) {
+                String path = section + ".option-" + j;
+                builder.append("  option-").append(j).append(": ").append(i * j).append('\n');
+                layout.addComment(path, "What option " + j + " does\nDefault: " + (i * j));
+                comments.put(path, Arrays.asList("  # What option " + j + " does", "  # Default: " + (i * j)));
+            }
+        }
+        yaml = builder.toString();
+    }
+
+    @Benchmark
+    public String layoutWrite() throws IOException {
+        StringBuilder builder = new StringBuilder(yaml.length() * 3);
+        layout.write(yaml, builder);
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String rescanInsert() {
+        List<String> lines = new ArrayList<>(Arrays.asList(yaml.split("\n")));
+        for (Map.Entry<String, List<String>> entry : sections.entrySet()) {
+            insert(lines, entry.getKey().split("\\."), 0, 0, entry.getValue());
+        }
+        for (Map.Entry<String, List<String>> entry : comments.entrySet()) {
+            insert(lines, entry.getKey().split("\\."), 0, 0, entry.getValue());
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) builder.append(line).append('\n');
+        return builder.toString();
+    }
+
+    private static void insert(List<String> lines, String[] divisions, int iteration, int startingLine, List<String> block) {
+        StringBuilder indent = new StringBuilder();
+        for (int j = 0; j < iteration; j++) indent.append("  ");
+
+        for (int i = startingLine; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (!line.startsWith(indent.toString())) return;
+            if (line.startsWith("#") || line.trim().startsWith("#")) continue;
+            if (line.startsWith(indent + divisions[iteration])) {
+                if ((iteration + 1) == divisions.length) {
+                    lines.addAll(i, block);
+                } else {
+                    insert(lines, divisions, iteration + 1, i + 1, block);
+                }
+                return;
+            }
+        }
+    }
+}